@@ -0,0 +1,70 @@
+package benchmark;
+
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import model.Epic;
+import model.SubTask;
+import model.Task;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.IntFunction;
+
+// Удерживаемая память на задачу и на подзадачу: разница занятой кучи после полной
+// сборки мусора до и после заполнения менеджера. JMH такого не меряет, поэтому
+// это отдельный main: java -cp ... benchmark.FootprintCheck [size]
+public class FootprintCheck {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int SUBTASKS_PER_EPIC = 100;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("task:    %6.0f B%n", bytesPerEntity(size, FootprintCheck::withTasks));
+        System.out.printf("subtask: %6.0f B (epics of %d)%n",
+                bytesPerEntity(size, FootprintCheck::withSubtasks), SUBTASKS_PER_EPIC);
+    }
+
+    private static double bytesPerEntity(int size, IntFunction<TaskManager> fill) {
+        long before = usedHeap();
+        TaskManager manager = fill.apply(size);
+        long after = usedHeap();
+        Reference.reachabilityFence(manager);
+        return (double) (after - before) / size;
+    }
+
+    private static TaskManager withTasks(int size) {
+        TaskManager manager = new InMemoryTaskManager();
+        for (int i = 0; i < size; i++) {
+            Task task = new Task("Task " + i, "Description " + i);
+            task.setStartTime(BASE.plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            manager.addTask(task);
+        }
+        return manager;
+    }
+
+    private static TaskManager withSubtasks(int size) {
+        TaskManager manager = new InMemoryTaskManager();
+        Epic epic = null;
+        for (int i = 0; i < size; i++) {
+            if (i % SUBTASKS_PER_EPIC == 0) {
+                epic = new Epic("Epic " + i, "Description " + i);
+                manager.addEpic(epic);
+            }
+            SubTask subTask = new SubTask("SubTask " + i, "Description " + i, epic.getId());
+            subTask.setStartTime(BASE.plusHours(i));
+            subTask.setDuration(Duration.ofMinutes(30));
+            manager.addSubTask(subTask);
+        }
+        return manager;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
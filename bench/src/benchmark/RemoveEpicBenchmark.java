@@ -0,0 +1,91 @@
+package benchmark;
+
+import manager.ConcurrentTaskManager;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Удаляется свежий эпик, поэтому эпики готовятся заранее пачкой по BATCH и вызов удаляет
+// всю пачку: накладные расходы JMH на подготовку уровня Invocation делятся на BATCH
+// удалений, а не ложатся на каждое. В gc.alloc.rate.norm попадает и сборка пачки,
+// поэтому это аллокации пары "добавить эпик + удалить эпик"
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class RemoveEpicBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int BATCH = 100;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    int size;
+
+    @Param({"10", "1000"})
+    int subtasksPerEpic;
+
+    @Param({"inMemory", "concurrent"})
+    String implementation;
+
+    TaskManager manager;
+    LocalDateTime nextSlot;
+    final int[] epicIds = new int[BATCH];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = "concurrent".equals(implementation) ? new ConcurrentTaskManager() : new InMemoryTaskManager();
+        for (int i = 0; i < size; i++) {
+            Task task = new Task("Task " + i, "Description " + i);
+            task.setStartTime(BASE.plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            manager.addTask(task);
+        }
+        nextSlot = BASE.plusHours(size);
+    }
+
+    // Время подзадач каждой пачки начинается с того же часа: прошлая пачка уже удалена
+    @Setup(Level.Invocation)
+    public void addEpics() {
+        LocalDateTime slot = nextSlot;
+        for (int e = 0; e < BATCH; e++) {
+            Epic epic = new Epic("Epic", "Description");
+            manager.addEpic(epic);
+            epicIds[e] = epic.getId();
+            for (int i = 0; i < subtasksPerEpic; i++) {
+                SubTask subTask = new SubTask("SubTask", "Description", epic.getId());
+                subTask.setStartTime(slot);
+                subTask.setDuration(Duration.ofMinutes(30));
+                slot = slot.plusHours(1);
+                manager.addSubTask(subTask);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void removeEpicById() {
+        for (int id : epicIds) {
+            manager.removeEpicById(id);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package benchmark;
+
+import manager.ConcurrentTaskManager;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class TaskManagerBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int LOOKUPS = 1 << 16;
+    // Добавленные в замере задачи живут в кольце: при возврате на ячейку прошлая задача
+    // удаляется, и размер менеджера за итерацию не растёт больше чем на RING
+    private static final int RING = 1 << 10;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    int size;
+
+    @Param({"inMemory", "concurrent"})
+    String implementation;
+
+    TaskManager manager;
+    int[] taskIds;
+    int[] subtaskIds;
+    int epicId;
+    int[] added;
+    int addCursor;
+    int cursor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        manager = "concurrent".equals(implementation) ? new ConcurrentTaskManager() : new InMemoryTaskManager();
+
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            Task task = new Task("Task " + i, "Description " + i);
+            task.setStartTime(BASE.plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            manager.addTask(task);
+            ids[i] = task.getId();
+        }
+
+        Epic epic = new Epic("Epic", "Large epic");
+        manager.addEpic(epic);
+        epicId = epic.getId();
+        int[] subIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            SubTask subTask = new SubTask("SubTask " + i, "Description " + i, epicId);
+            manager.addSubTask(subTask);
+            subIds[i] = subTask.getId();
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        taskIds = new int[LOOKUPS];
+        subtaskIds = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            taskIds[i] = ids[random.nextInt(size)];
+            subtaskIds[i] = subIds[random.nextInt(size)];
+        }
+        cursor = 0;
+        added = new int[RING];
+        addCursor = 0;
+    }
+
+    @Benchmark
+    public Task addTaskWithoutTime() {
+        int slot = vacateRingSlot();
+        Task task = new Task("Task", "Description");
+        manager.addTask(task);
+        added[slot] = task.getId();
+        return task;
+    }
+
+    // Час за исходными задачами привязан к ячейке кольца и освобождается вместе с ней
+    @Benchmark
+    public Task addTaskWithTime() {
+        int slot = vacateRingSlot();
+        Task task = new Task("Task", "Description");
+        task.setStartTime(BASE.plusHours(size + slot));
+        task.setDuration(Duration.ofMinutes(30));
+        manager.addTask(task);
+        added[slot] = task.getId();
+        return task;
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return manager.getTaskById(taskIds[cursor++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public void updateSubTaskOnLargeEpic() {
+        int id = subtaskIds[cursor++ & (LOOKUPS - 1)];
+        SubTask subTask = new SubTask("SubTask", "Updated", epicId);
+        subTask.setId(id);
+        subTask.setStatus((cursor & 1) == 0 ? TaskStatus.DONE : TaskStatus.IN_PROGRESS);
+        manager.updateSubTask(subTask);
+    }
+
+    @Benchmark
+    public List<Task> getPrioritizedTasks() {
+        return manager.getPrioritizedTasks();
+    }
+
+    private int vacateRingSlot() {
+        int slot = addCursor++ & (RING - 1);
+        if (added[slot] != 0) {
+            manager.removeTaskById(added[slot]);
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,84 @@
+package manager;
+
+import model.SubTask;
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Жадная раскладка: задачи идут по убыванию приоритета, затем по дедлайну, и каждая
+// занимает самое раннее подходящее окно. Окна ищутся по копии IntervalIndex с учётом
+// зазоров, поэтому задача стоит O(log n), а не перебор кандидатов через addTask.
+final class AutoScheduler {
+    private static final Comparator<Planned> ORDER = Comparator
+            .comparingInt((Planned planned) -> -planned.item.priority)
+            .thenComparing(planned -> planned.deadline, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(planned -> planned.earliest)
+            .thenComparingInt(planned -> planned.item.id);
+
+    private static final class Planned {
+        final SchedulingRequest.Item item;
+        final Task task;
+        final LocalDateTime earliest;
+        // null — без дедлайна
+        final LocalDateTime deadline;
+        final Duration duration;
+
+        Planned(SchedulingRequest.Item item, Task task, LocalDateTime from) {
+            this.item = item;
+            this.task = task;
+            this.earliest = item.earliest == null || item.earliest.isBefore(from) ? from : item.earliest;
+            this.deadline = item.deadline;
+            this.duration = task.getDuration();
+        }
+    }
+
+    private AutoScheduler() {
+    }
+
+    // tasks[i] — задача для items().get(i); в batch попадают копии с новым startTime
+    static SchedulingResult plan(SchedulingRequest request, List<Task> tasks, IntervalIndex occupied, TaskBatch batch) {
+        LocalDateTime from = request.getFrom();
+        Duration step = request.getGranularity();
+        List<Planned> queue = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            queue.add(new Planned(request.items().get(i), tasks.get(i), from));
+        }
+        queue.sort(ORDER);
+
+        List<Task> scheduled = new ArrayList<>();
+        List<Integer> unscheduled = new ArrayList<>();
+        for (Planned planned : queue) {
+            LocalDateTime start = occupied.firstFit(planned.earliest, planned.duration, step);
+            // firstFit отдаёт только начала, для которых конец представим
+            LocalDateTime end = start == null ? null : start.plus(planned.duration);
+            if (start == null || (planned.deadline != null && end.isAfter(planned.deadline))) {
+                unscheduled.add(planned.item.id);
+                continue;
+            }
+            occupied.add(planned.item.id, start, end);
+            Task copy = withStart(planned.task, start);
+            if (copy instanceof SubTask) {
+                batch.updateSubTask((SubTask) copy);
+            } else {
+                batch.updateTask(copy);
+            }
+            scheduled.add(copy);
+        }
+        return new SchedulingResult(scheduled, unscheduled);
+    }
+
+    private static Task withStart(Task task, LocalDateTime start) {
+        Task copy = task instanceof SubTask
+                ? new SubTask(task.getName(), task.getDescription(), ((SubTask) task).getEpicId())
+                : new Task(task.getName(), task.getDescription());
+        copy.setId(task.getId());
+        copy.setStatus(task.getStatus());
+        copy.setDuration(task.getDuration());
+        copy.setStartTime(start);
+        return copy;
+    }
+}
@@ -0,0 +1,252 @@
+package manager;
+
+import model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Двоичный снапшот: заголовок MAGIC + VERSION + число записей, дальше записи подряд.
+// Запись: тип и статус — ordinal, строки — длина в байтах UTF-8 (-1 для null) и байты,
+// время — секунды от эпохи (UTC) и наносекунды, длительность — секунды и наносекунды.
+// Читается потоком через FileChannel в один переиспользуемый буфер фиксированного
+// размера, без разбора текста и без копии всего файла в куче. Отображение в память
+// не используется: оно держит файл до сборки мусора, и на Windows снапшот потом
+// нельзя перезаписать или переименовать.
+final class BinarySnapshot {
+    static final int MAGIC = 0x54444A42; // "TDJB"
+    private static final byte VERSION = 1;
+    private static final int CHUNK = 64 * 1024;
+
+    private static final int HAS_DURATION = 1;
+    private static final int HAS_START = 2;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private BinarySnapshot() {
+    }
+
+    // Эпики пишутся раньше подзадач, чтобы при загрузке подзадаче было куда добавиться.
+    // Буфер растёт удвоением и отдаётся как есть, без финальной копии в массив
+    static ByteBuffer encode(List<Task> tasks, List<Epic> epics, List<SubTask> subtasks) {
+        Output out = new Output(64 * (tasks.size() + epics.size() + subtasks.size()) + 16);
+        out.ensure(Integer.BYTES + 1 + Integer.BYTES);
+        out.buffer.putInt(MAGIC);
+        out.buffer.put(VERSION);
+        out.buffer.putInt(tasks.size() + epics.size() + subtasks.size());
+        for (Task task : tasks) {
+            write(out, TaskType.TASK, task, 0);
+        }
+        for (Epic epic : epics) {
+            write(out, TaskType.EPIC, epic, 0);
+        }
+        for (SubTask subTask : subtasks) {
+            write(out, TaskType.SUBTASK, subTask, subTask.getEpicId());
+        }
+        return out.buffer.flip();
+    }
+
+    static boolean isBinary(File file) {
+        if (file.length() < Integer.BYTES) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(Integer.BYTES);
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // читаем, пока не наберутся 4 байта
+            }
+            return !head.hasRemaining() && head.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error while loading file", e);
+        }
+    }
+
+    static void read(File file, Consumer<Task> consumer) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Input in = new Input(channel, file);
+            in.require(Integer.BYTES + 1 + Integer.BYTES);
+            if (in.buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Invalid binary snapshot " + file);
+            }
+            byte version = in.buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot version " + version);
+            }
+            int count = in.buffer.getInt();
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < count; i++) {
+                consumer.accept(readTask(in, scratch));
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error while loading file", e);
+        }
+    }
+
+    private static void write(Output out, TaskType type, Task task, int epicId) {
+        out.ensure(1 + Integer.BYTES + 1);
+        out.buffer.put((byte) type.ordinal());
+        out.buffer.putInt(task.getId());
+        out.buffer.put((byte) (task.getStatus() != null ? task.getStatus().ordinal() : -1));
+        writeString(out, task.getName());
+        writeString(out, task.getDescription());
+        Duration duration = task.getDuration();
+        LocalDateTime startTime = task.getStartTime();
+        out.ensure(Integer.BYTES + 1 + 2 * (Long.BYTES + Integer.BYTES));
+        if (type == TaskType.SUBTASK) {
+            out.buffer.putInt(epicId);
+        }
+        out.buffer.put((byte) ((duration != null ? HAS_DURATION : 0) | (startTime != null ? HAS_START : 0)));
+        if (duration != null) {
+            out.buffer.putLong(duration.getSeconds());
+            out.buffer.putInt(duration.getNano());
+        }
+        if (startTime != null) {
+            out.buffer.putLong(startTime.toEpochSecond(ZoneOffset.UTC));
+            out.buffer.putInt(startTime.getNano());
+        }
+    }
+
+    private static void writeString(Output out, String value) {
+        if (value == null) {
+            out.ensure(Integer.BYTES);
+            out.buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.ensure(Integer.BYTES + bytes.length);
+        out.buffer.putInt(bytes.length);
+        out.buffer.put(bytes);
+    }
+
+    private static Task readTask(Input in, byte[] scratch) throws IOException {
+        in.require(1 + Integer.BYTES + 1);
+        TaskType type = TYPES[in.buffer.get()];
+        int id = in.buffer.getInt();
+        byte status = in.buffer.get();
+        String name = readString(in, scratch);
+        String description = readString(in, scratch);
+
+        Task task;
+        switch (type) {
+            case SUBTASK:
+                in.require(Integer.BYTES);
+                task = new SubTask(name, description, in.buffer.getInt());
+                break;
+            case EPIC:
+                task = new Epic(name, description);
+                break;
+            default:
+                task = new Task(name, description);
+                break;
+        }
+        task.setId(id);
+        task.setStatus(status >= 0 ? STATUSES[status] : null);
+
+        in.require(1);
+        byte flags = in.buffer.get();
+        if ((flags & HAS_DURATION) != 0) {
+            in.require(Long.BYTES + Integer.BYTES);
+            long seconds = in.buffer.getLong();
+            task.setDuration(Duration.ofSeconds(seconds, in.buffer.getInt()));
+        } else {
+            task.setDuration(null);
+        }
+        if ((flags & HAS_START) != 0) {
+            in.require(Long.BYTES + Integer.BYTES);
+            long epochSecond = in.buffer.getLong();
+            task.setStartTime(LocalDateTime.ofEpochSecond(epochSecond, in.buffer.getInt(), ZoneOffset.UTC));
+        }
+        return task;
+    }
+
+    private static String readString(Input in, byte[] scratch) throws IOException {
+        in.require(Integer.BYTES);
+        int length = in.buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("Truncated binary snapshot " + in.file);
+        }
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        in.get(bytes, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Буфер записи: растёт удвоением, пока не влезет очередное поле
+    private static final class Output {
+        private ByteBuffer buffer;
+
+        Output(int capacity) {
+            buffer = ByteBuffer.allocate(capacity);
+        }
+
+        void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                grown.put(buffer.flip());
+                buffer = grown;
+            }
+        }
+    }
+
+    // Окно чтения над каналом: непрочитанный хвост сдвигается в начало буфера
+    // и дочитывается из файла. Строки длиннее окна копируются мимо него
+    private static final class Input {
+        private final FileChannel channel;
+        private final File file;
+        private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK);
+
+        Input(FileChannel channel, File file) {
+            this.channel = channel;
+            this.file = file;
+            buffer.flip();
+        }
+
+        long remaining() throws IOException {
+            return buffer.remaining() + channel.size() - channel.position();
+        }
+
+        // Поля фиксированной длины всегда меньше окна
+        void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new IllegalArgumentException("Truncated binary snapshot " + file);
+                }
+            }
+            buffer.flip();
+        }
+
+        void get(byte[] target, int length) throws IOException {
+            int buffered = Math.min(length, buffer.remaining());
+            buffer.get(target, 0, buffered);
+            if (buffered == length) {
+                return;
+            }
+            if (length - buffered < CHUNK) {
+                require(length - buffered);
+                buffer.get(target, buffered, length - buffered);
+                return;
+            }
+            ByteBuffer rest = ByteBuffer.wrap(target, buffered, length - buffered);
+            while (rest.hasRemaining()) {
+                if (channel.read(rest) < 0) {
+                    throw new IllegalArgumentException("Truncated binary snapshot " + file);
+                }
+            }
+        }
+    }
+}
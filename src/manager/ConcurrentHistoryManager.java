@@ -0,0 +1,120 @@
+package manager;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Порядок просмотров — skip-list по номеру просмотра, поиск по id — ConcurrentHashMap.
+// Запись блокирует только корзину своего id, самые старые просмотры вытесняются
+// при превышении capacity.
+public class ConcurrentHistoryManager implements HistoryManager {
+    private final int capacity;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Task> order = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+    // Растёт после каждого изменения порядка; снимок помнит версию, с которой собран
+    private final AtomicLong version = new AtomicLong();
+    private volatile View view;
+
+    private static final class View {
+        final long version;
+        final List<Task> tasks;
+
+        View(long version, List<Task> tasks) {
+            this.version = version;
+            this.tasks = tasks;
+        }
+    }
+
+    private static final class Entry {
+        final long seq;
+        final Task task;
+
+        Entry(long seq, Task task) {
+            this.seq = seq;
+            this.task = task;
+        }
+    }
+
+    public ConcurrentHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        entries.compute(task.getId(), (id, old) -> {
+            if (old != null) {
+                order.remove(old.seq);
+            } else {
+                size.incrementAndGet();
+            }
+            long seq = sequence.incrementAndGet();
+            order.put(seq, task);
+            return new Entry(seq, task);
+        });
+        evict();
+        version.incrementAndGet();
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return new ArrayList<>(order.values());
+    }
+
+    @Override
+    public List<Task> getHistoryView() {
+        long current = version.get();
+        View cached = view;
+        if (cached != null && cached.version == current) {
+            return cached.tasks;
+        }
+        List<Task> tasks = Collections.unmodifiableList(getHistory());
+        view = new View(current, tasks);
+        return tasks;
+    }
+
+    @Override
+    public void remove(int id) {
+        entries.computeIfPresent(id, (key, entry) -> {
+            order.remove(entry.seq);
+            size.decrementAndGet();
+            version.incrementAndGet();
+            return null;
+        });
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void evict() {
+        while (size.get() > capacity) {
+            Map.Entry<Long, Task> eldest = order.pollFirstEntry();
+            if (eldest == null) {
+                return;
+            }
+            long seq = eldest.getKey();
+            entries.computeIfPresent(eldest.getValue().getId(), (id, entry) -> {
+                if (entry.seq != seq) {
+                    return entry;
+                }
+                size.decrementAndGet();
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package manager;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import util.ConcurrentIntMap;
+import util.IntMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+// Хранилища — ConcurrentHashMap, поэтому get*ById и getAll* идут без блокировок.
+// Изменения общих индексов (расписание, счётчик id) сериализуются на indexLock,
+// а согласованность эпика и его подзадач для читателей держат полосатые блокировки.
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private static final int STRIPES = 64;
+    private static final int STRIPE_SHIFT = Integer.numberOfLeadingZeros(STRIPES - 1);
+
+    private final ReentrantReadWriteLock[] stripes = new ReentrantReadWriteLock[STRIPES];
+    private final StampedLock indexLock = new StampedLock();
+    private volatile PrioritizedView prioritized;
+    // Владелец записи: applyBatch вызывает обычные мутаторы, уже держа indexLock,
+    // а StampedLock не реентерабелен. Каждый поток видит здесь только свою запись.
+    private Thread writer;
+
+    private static final class PrioritizedView {
+        final long stamp;
+        final List<Task> tasks;
+
+        PrioritizedView(long stamp, List<Task> tasks) {
+            this.stamp = stamp;
+            this.tasks = tasks;
+        }
+    }
+
+    public ConcurrentTaskManager() {
+        this(Managers.getBoundedHistory(Managers.DEFAULT_HISTORY_CAPACITY));
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(historyManager);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @Override
+    protected <V> IntMap<V> createStorage() {
+        return new ConcurrentIntMap<>();
+    }
+
+    @Override
+    protected NavigableSet<Integer> createIdIndex() {
+        return new ConcurrentSkipListSet<>();
+    }
+
+    @Override
+    public void addTask(Task task) {
+        write(() -> super.addTask(task));
+    }
+
+    @Override
+    public void removeAllTasks() {
+        write(super::removeAllTasks);
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> super.updateTask(task));
+    }
+
+    @Override
+    public void removeTaskById(int id) {
+        write(() -> super.removeTaskById(id));
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        write(() -> super.addEpic(epic));
+    }
+
+    @Override
+    public void removeAllEpics() {
+        writeAllEpics(super::removeAllEpics);
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        if (epic == null) {
+            return;
+        }
+        writeEpic(epic.getId(), () -> super.updateEpic(epic));
+    }
+
+    @Override
+    public void removeEpicById(int id) {
+        writeEpic(id, () -> super.removeEpicById(id));
+    }
+
+    @Override
+    public void addSubTask(SubTask subTask) {
+        if (subTask == null) {
+            return;
+        }
+        writeEpic(subTask.getEpicId(), () -> super.addSubTask(subTask));
+    }
+
+    @Override
+    public void removeAllSubTasks() {
+        writeAllEpics(super::removeAllSubTasks);
+    }
+
+    @Override
+    public void updateSubTask(SubTask subTask) {
+        if (subTask == null) {
+            return;
+        }
+        writeEpic(subTask.getEpicId(), () -> super.updateSubTask(subTask));
+    }
+
+    @Override
+    public void removeSubTaskById(int id) {
+        while (true) {
+            SubTask subTask = findSubTask(id);
+            if (subTask == null) {
+                return;
+            }
+            ReentrantReadWriteLock.WriteLock lock = stripe(subTask.getEpicId()).writeLock();
+            lock.lock();
+            try {
+                SubTask current = findSubTask(id);
+                if (current == null) {
+                    return;
+                }
+                if (stripe(current.getEpicId()) == stripe(subTask.getEpicId())) {
+                    write(() -> super.removeSubTaskById(id));
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<SubTask> getSubTasksByEpicId(int epicId) {
+        ReentrantReadWriteLock.ReadLock lock = stripe(epicId).readLock();
+        lock.lock();
+        try {
+            return super.getSubTasksByEpicId(epicId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return new ArrayList<>(getPrioritizedView());
+    }
+
+    // Снимок расписания живёт, пока indexLock не брали на запись:
+    // проверка штампа не блокирует ни читателей, ни писателей.
+    @Override
+    public List<Task> getPrioritizedView() {
+        PrioritizedView view = prioritized;
+        if (view != null && indexLock.validate(view.stamp)) {
+            return view.tasks;
+        }
+        long stamp = indexLock.readLock();
+        try {
+            List<Task> tasks = Collections.unmodifiableList(super.getPrioritizedTasks());
+            prioritized = new PrioritizedView(stamp, tasks);
+            return tasks;
+        } finally {
+            indexLock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedPage(LocalDateTime afterStart, int afterId, int limit) {
+        return read(() -> super.getPrioritizedPage(afterStart, afterId, limit));
+    }
+
+    @Override
+    public List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.getTasksStartingBetween(from, to));
+    }
+
+    @Override
+    public List<Task> getTasksActiveAt(LocalDateTime time) {
+        return read(() -> super.getTasksActiveAt(time));
+    }
+
+    @Override
+    public TimeSlot findFreeSlot(LocalDateTime from, Duration duration) {
+        return read(() -> super.findFreeSlot(from, duration));
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(LocalDateTime from, Duration duration, int limit) {
+        return read(() -> super.findFreeSlots(from, duration, limit));
+    }
+
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        writeAllEpics(() -> super.applyBatch(batch));
+    }
+
+    @Override
+    public SchedulingResult autoSchedule(SchedulingRequest request) {
+        SchedulingResult[] result = new SchedulingResult[1];
+        writeAllEpics(() -> result[0] = super.autoSchedule(request));
+        return result[0];
+    }
+
+    @Override
+    public List<Integer> searchTasks(String query, int limit) {
+        return read(() -> super.searchTasks(query, limit));
+    }
+
+    private ReentrantReadWriteLock stripe(int epicId) {
+        return stripes[(epicId * 0x9E3779B9) >>> STRIPE_SHIFT];
+    }
+
+    private <R> R read(Supplier<R> action) {
+        long stamp = indexLock.readLock();
+        try {
+            return action.get();
+        } finally {
+            indexLock.unlockRead(stamp);
+        }
+    }
+
+    private void write(Runnable action) {
+        if (writer == Thread.currentThread()) {
+            action.run();
+            return;
+        }
+        long stamp = indexLock.writeLock();
+        writer = Thread.currentThread();
+        try {
+            action.run();
+        } finally {
+            writer = null;
+            indexLock.unlockWrite(stamp);
+        }
+    }
+
+    private void writeEpic(int epicId, Runnable action) {
+        ReentrantReadWriteLock.WriteLock lock = stripe(epicId).writeLock();
+        lock.lock();
+        try {
+            write(action);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeAllEpics(Runnable action) {
+        for (ReentrantReadWriteLock stripe : stripes) {
+            stripe.writeLock().lock();
+        }
+        try {
+            write(action);
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                stripes[i].writeLock().unlock();
+            }
+        }
+    }
+}
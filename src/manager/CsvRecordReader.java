@@ -0,0 +1,105 @@
+package manager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Читает записи CSV побайтно через собственный буфер. Внутри поля в кавычках
+// переводы строк и '\r' сохраняются как есть; снаружи кавычек запись
+// заканчивается на '\n', '\r' или "\r\n". Разделители однобайтовые и не встречаются
+// внутри многобайтовых символов UTF-8, поэтому в UTF-8 декодируется уже вся
+// запись целиком. Экземпляр не потокобезопасен.
+final class CsvRecordReader implements Closeable {
+    private final InputStream in;
+    // В журнале запись без перевода строки в конце файла оборвана при сбое
+    private final boolean dropUnterminated;
+    private final byte[] buffer = new byte[8192];
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    private byte[] record = new byte[256];
+    private int length;
+    private int pos;
+    private int limit;
+    // После '\r' следующий '\n' относится к тому же концу записи
+    private boolean skipLf;
+    // Смещение в байтах за последним прочитанным байтом
+    private long offset;
+
+    CsvRecordReader(InputStream in, boolean dropUnterminated) {
+        this.in = in;
+        this.dropUnterminated = dropUnterminated;
+    }
+
+    // Следующая запись без завершающего перевода строки или null в конце файла.
+    // При dropUnterminated оборванный хвост не декодируется и тоже даёт null.
+    String next() throws IOException {
+        length = 0;
+        boolean quoted = false;
+        boolean afterQuote = false;
+        boolean fieldStart = true;
+        boolean empty = true;
+        while (pos < limit || fill()) {
+            byte b = buffer[pos++];
+            offset++;
+            if (skipLf) {
+                skipLf = false;
+                if (b == '\n') {
+                    continue;
+                }
+            }
+            empty = false;
+            if (quoted) {
+                if (b == '"') {
+                    quoted = false;
+                    afterQuote = true;
+                }
+                append(b);
+                continue;
+            }
+            if (b == '\n' || b == '\r') {
+                skipLf = b == '\r';
+                return decode();
+            }
+            // Удвоенная кавычка внутри поля: закрывающая сразу открывается снова
+            quoted = b == '"' && (fieldStart || afterQuote);
+            afterQuote = false;
+            fieldStart = b == ',';
+            append(b);
+        }
+        return empty || dropUnterminated ? null : decode();
+    }
+
+    // Байты, прочитанные до конца последней возвращённой записи включительно
+    long offset() {
+        return offset;
+    }
+
+    private void append(byte b) {
+        if (length == record.length) {
+            record = Arrays.copyOf(record, length * 2);
+        }
+        record[length++] = b;
+    }
+
+    private String decode() throws IOException {
+        return decoder.decode(ByteBuffer.wrap(record, 0, length)).toString();
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
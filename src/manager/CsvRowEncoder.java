@@ -0,0 +1,166 @@
+package manager;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// Строка CSV собирается прямо в переиспользуемый буфер, без String.format и
+// DateTimeFormatter. Поле с запятой, переводом строки или кавычкой в начале
+// берётся в кавычки (внутренние кавычки удваиваются), остальные пишутся как есть,
+// поэтому для прежних данных вывод не меняется. Экземпляр не потокобезопасен.
+final class CsvRowEncoder {
+    private final StringBuilder row = new StringBuilder(128);
+    private final StringBuilder snapshot = new StringBuilder(4096);
+
+    String encode(Task task) {
+        row.setLength(0);
+        append(row, task);
+        return row.toString();
+    }
+
+    // Буфер снапшота общий для всех вызовов: содержимое валидно до следующего вызова
+    StringBuilder beginSnapshot(String header) {
+        snapshot.setLength(0);
+        return snapshot.append(header).append('\n');
+    }
+
+    void append(StringBuilder out, Task task) {
+        TaskType type = task instanceof SubTask ? TaskType.SUBTASK
+                : task instanceof Epic ? TaskType.EPIC : TaskType.TASK;
+        out.append(task.getId()).append(',');
+        out.append(type.name()).append(',');
+        appendField(out, task.getName());
+        out.append(',').append(task.getStatus()).append(',');
+        appendField(out, task.getDescription());
+        out.append(',');
+        if (type == TaskType.SUBTASK) {
+            out.append(((SubTask) task).getEpicId());
+        }
+        out.append(',');
+        Duration duration = task.getDuration();
+        if (duration != null) {
+            out.append(type == TaskType.EPIC ? duration.toSeconds() : duration.toMinutes());
+        }
+        out.append(',');
+        if (task.getStartTime() != null) {
+            appendDateTime(out, task.getStartTime());
+        }
+    }
+
+    static String[] split(String line) {
+        List<String> fields = new ArrayList<>(8);
+        int length = line.length();
+        int pos = 0;
+        while (true) {
+            if (pos < length && line.charAt(pos) == '"') {
+                StringBuilder field = new StringBuilder();
+                pos++;
+                while (true) {
+                    if (pos >= length) {
+                        throw new IllegalArgumentException("Unterminated quoted field " + line);
+                    }
+                    char c = line.charAt(pos++);
+                    if (c == '"') {
+                        if (pos < length && line.charAt(pos) == '"') {
+                            field.append('"');
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+                fields.add(field.toString());
+            } else {
+                int comma = line.indexOf(',', pos);
+                int end = comma < 0 ? length : comma;
+                fields.add(line.substring(pos, end));
+                pos = end;
+            }
+            if (pos >= length) {
+                return fields.toArray(new String[0]);
+            }
+            if (line.charAt(pos) != ',') {
+                throw new IllegalArgumentException("Unexpected character after quoted field " + line);
+            }
+            pos++;
+        }
+    }
+
+    private static void appendField(StringBuilder out, String value) {
+        if (value == null || !needsQuotes(value)) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        if (!value.isEmpty() && value.charAt(0) == '"') {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Тот же вид, что у DateTimeFormatter.ISO_LOCAL_DATE_TIME: секунды всегда,
+    // дробная часть без хвостовых нулей. Годы вне 0..9999 отдаются форматтеру.
+    private static void appendDateTime(StringBuilder out, LocalDateTime time) {
+        int year = time.getYear();
+        if (year < 0 || year > 9999) {
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(time, out);
+            return;
+        }
+        appendPadded(out, year, 4);
+        out.append('-');
+        appendPadded(out, time.getMonthValue(), 2);
+        out.append('-');
+        appendPadded(out, time.getDayOfMonth(), 2);
+        out.append('T');
+        appendPadded(out, time.getHour(), 2);
+        out.append(':');
+        appendPadded(out, time.getMinute(), 2);
+        out.append(':');
+        appendPadded(out, time.getSecond(), 2);
+        int nano = time.getNano();
+        if (nano != 0) {
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            out.append('.');
+            appendPadded(out, nano, digits);
+        }
+    }
+
+    private static void appendPadded(StringBuilder out, int value, int width) {
+        for (int bound = 10, i = 1; i < width; i++, bound *= 10) {
+            if (value < bound) {
+                out.append('0');
+            }
+        }
+        out.append(value);
+    }
+}
@@ -0,0 +1,7 @@
+package manager;
+
+public enum Durability {
+    NONE,
+    FSYNC_ON_FLUSH,
+    FSYNC_ON_WRITE
+}
@@ -1,183 +1,920 @@
 package manager;
 
 import model.*;
+import util.StringPool;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class FileBackedTaskManager extends InMemoryTaskManager implements TaskManager, AutoCloseable {
+    private static final String HEADER = "id,type,name,status,description,epic,duration,startTime";
+
+    // Получает размер и длительность каждой записи на диск: снапшота или блока журнала
+    public interface SaveObserver {
+        void onSave(long bytes, long nanos);
+    }
+
+    private enum JournalOp {
+        ADD,
+        UPDATE,
+        REMOVE,
+        CLEAR,
+        BATCH
+    }
 
-public class FileBackedTaskManager extends InMemoryTaskManager implements TaskManager {
     private File file;
+    private final File journal;
+    private final PersistenceMode mode;
+    private Durability durability = Durability.NONE;
+    private SnapshotFormat format = SnapshotFormat.CSV;
+    private final CsvRowEncoder encoder = new CsvRowEncoder();
+
+    // Отложенная запись: изменения только помечают состояние грязным, фоновый поток
+    // сбрасывает накопленное не позже чем через writeBehindDelay одной записью.
+    private final Object stateLock = new Object();
+    private final Object ioLock = new Object();
+    // Журнал дописывают и мутаторы под stateLock (без отложенной записи), и сброс под ioLock.
+    // journalEnd и любая дописка, обрезка и переименование журнала идут под journalLock;
+    // он берётся последним, внутри ioLock и stateLock
+    private final Object journalLock = new Object();
+    private Duration writeBehindDelay;
+    private ScheduledExecutorService flusher;
+    private boolean flushScheduled;
+    private boolean dirty;
+    private boolean unsynced;
+    private final StringBuilder pendingJournal = new StringBuilder();
+    // Длина журнала до неудачной дописки, которую ещё нужно отрезать; -1 если нечего
+    private long journalEnd = -1;
+    // Записи журнала текущего applyBatch; null вне набора
+    private List<String> batchRecords;
+    private volatile SaveObserver saveObserver;
+
+    // Уплотнение журнала: снапшот пишется в file + ".compact", журнал отрезается
+    // в сегмент journal + ".old.<n>". Переименование .compact в file — точка фиксации:
+    // пока .compact существует, загрузка проигрывает старые сегменты, после — удаляет их.
+    private final File compactFile;
+    private ExecutorService compactor;
+    private double maxGarbageRatio;
+    private long minCompactionRecords;
+    private boolean compactionScheduled;
+    private long snapshotRecords;
+    private long journalRecords;
 
     public FileBackedTaskManager(File file) {
+        this(file, PersistenceMode.SNAPSHOT);
+    }
+
+    public FileBackedTaskManager(File file, PersistenceMode mode) {
         super();
         this.file = file;
+        this.mode = mode;
+        this.journal = new File(file.getPath() + ".journal");
+        this.compactFile = new File(file.getPath() + ".compact");
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        return loadFromFile(file, PersistenceMode.SNAPSHOT);
+    }
+
+    // В режиме JOURNAL файл снапшота не переписывается: изменения дописываются
+    // в file + ".journal" и проигрываются поверх снапшота при загрузке.
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode mode) {
+        return loadFromFile(file, mode, null);
+    }
+
+    // Строки name и description загруженных задач проходят через pool, так что
+    // повторяющиеся значения хранятся в одном экземпляре
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode mode, StringPool pool) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, mode);
+        manager.setStringPool(pool);
         manager.loadFromFile();
+        if (mode == PersistenceMode.JOURNAL) {
+            manager.replayJournals();
+        }
         return manager;
     }
 
+    public File getJournalFile() {
+        return journal;
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+        return format;
+    }
+
+    // CSV остаётся форматом для обмена, BINARY — для быстрого холодного старта.
+    // loadFromFile определяет формат сам и сохраняет его для последующих записей.
+    public void setSnapshotFormat(SnapshotFormat format) {
+        synchronized (stateLock) {
+            this.format = format;
+        }
+    }
+
+    public void setSaveObserver(SaveObserver observer) {
+        this.saveObserver = observer;
+    }
+
+    public SaveObserver getSaveObserver() {
+        return saveObserver;
+    }
+
+    public void setDurability(Durability durability) {
+        synchronized (stateLock) {
+            this.durability = durability;
+        }
+    }
+
+    public void enableWriteBehind(Duration maxDelay) {
+        if (maxDelay == null || maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Invalid write-behind delay: " + maxDelay);
+        }
+        synchronized (stateLock) {
+            if (flusher == null) {
+                ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                    Thread thread = new Thread(runnable, "task-manager-flusher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                // отложенный сброс после close не нужен: close сбрасывает всё сам
+                executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+                flusher = executor;
+            }
+            writeBehindDelay = maxDelay;
+        }
+    }
+
+    // Журнал уплотняется в фоне, когда доля мёртвых записей (удалённые сущности,
+    // перекрытые обновления) в снапшоте и журнале превышает maxGarbageRatio,
+    // а всего записей не меньше minRecords
+    public void enableCompaction(double maxGarbageRatio, long minRecords) {
+        if (mode != PersistenceMode.JOURNAL) {
+            throw new IllegalStateException("Compaction requires journal mode");
+        }
+        if (!(maxGarbageRatio >= 0 && maxGarbageRatio < 1) || minRecords < 0) {
+            throw new IllegalArgumentException("Invalid compaction threshold: " + maxGarbageRatio + ", " + minRecords);
+        }
+        synchronized (stateLock) {
+            if (compactor == null) {
+                compactor = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "task-manager-compactor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            this.maxGarbageRatio = maxGarbageRatio;
+            this.minCompactionRecords = minRecords;
+            maybeCompact();
+        }
+    }
+
+    // Доля записей снапшота и журнала, которые не нужны для текущего состояния
+    public double getGarbageRatio() {
+        synchronized (stateLock) {
+            long total = snapshotRecords + journalRecords;
+            return total == 0 ? 0 : (double) (total - liveRecords()) / total;
+        }
+    }
+
+    // Пишет новый снапшот по состоянию на момент отрезания журнала и атомарно
+    // подменяет им файл. Мутаторы ждут только отрезания журнала и копирования списков,
+    // запись идёт без stateLock. При сбое отложенные записи, снятые при отрезании,
+    // возвращаются в очередь, а сегмент обрезается до прежней длины.
+    public void compact() {
+        if (mode != PersistenceMode.JOURNAL) {
+            throw new IllegalStateException("Compaction requires journal mode");
+        }
+        synchronized (ioLock) {
+            writeFile(compactFile, ByteBuffer.allocate(0), false, false);
+            List<Task> tasks;
+            List<Epic> epics;
+            List<SubTask> subTasks;
+            SnapshotFormat snapshotFormat;
+            String records = null;
+            File segment = null;
+            long segmentSize = 0;
+            long coveredJournal;
+            boolean sync;
+            try {
+                synchronized (stateLock) {
+                    segment = nextSegment();
+                    synchronized (journalLock) {
+                        truncateJournal();
+                        if (journal.exists() && !journal.renameTo(segment)) {
+                            throw new ManagerSaveException("Error while rotating journal", null);
+                        }
+                    }
+                    segmentSize = segment.length();
+                    if (pendingJournal.length() > 0) {
+                        records = pendingJournal.toString();
+                        pendingJournal.setLength(0);
+                    }
+                    tasks = getAllTasks();
+                    epics = getAllEpics();
+                    subTasks = getAllSubTasks();
+                    snapshotFormat = format;
+                    coveredJournal = journalRecords;
+                    sync = durability != Durability.NONE;
+                }
+                if (records != null) {
+                    writeFile(segment, ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8)), sync, true);
+                }
+                writeFile(compactFile, render(snapshotFormat, new CsvRowEncoder(), tasks, epics, subTasks), sync, false);
+                try {
+                    Files.move(compactFile.toPath(), file.toPath(),
+                            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new ManagerSaveException("Error while replacing snapshot", e);
+                }
+            } catch (RuntimeException e) {
+                if (records != null) {
+                    try {
+                        truncate(segment, segmentSize);
+                    } catch (ManagerSaveException suppressed) {
+                        e.addSuppressed(suppressed);
+                    }
+                    synchronized (stateLock) {
+                        pendingJournal.insert(0, records);
+                    }
+                }
+                throw e;
+            }
+            for (File old : oldSegments()) {
+                old.delete();
+            }
+            synchronized (stateLock) {
+                snapshotRecords = tasks.size() + epics.size() + subTasks.size();
+                journalRecords -= coveredJournal;
+            }
+        }
+    }
+
+    public void flush() {
+        boolean sync;
+        synchronized (stateLock) {
+            sync = durability != Durability.NONE;
+        }
+        flush(sync);
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService executor;
+        ExecutorService compaction;
+        synchronized (stateLock) {
+            executor = flusher;
+            flusher = null;
+            writeBehindDelay = null;
+            flushScheduled = false;
+            compaction = compactor;
+            compactor = null;
+        }
+        awaitShutdown(executor);
+        awaitShutdown(compaction);
+        flush();
+    }
+
+    // Идущий сброс или уплотнение доводим до конца: прерванная запись в канал
+    // закрыла бы его с ClosedByInterruptException посреди записи
+    private static void awaitShutdown(ExecutorService executor) {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    // Набор сохраняется одной записью: снапшот переписывается один раз, а в журнал
+    // уходит блок "BATCH,<n>" и n записей. Оборванный блок при загрузке отбрасывается.
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        synchronized (stateLock) {
+            List<String> records = new ArrayList<>();
+            batchRecords = records;
+            try {
+                super.applyBatch(batch);
+            } finally {
+                batchRecords = null;
+            }
+            if (mode == PersistenceMode.SNAPSHOT) {
+                if (!batch.isEmpty()) {
+                    snapshotChanged();
+                }
+            } else if (!records.isEmpty()) {
+                StringBuilder block = new StringBuilder().append(JournalOp.BATCH).append(',').append(records.size());
+                for (String record : records) {
+                    block.append('\n').append(record);
+                }
+                journalRecord(block.toString(), records.size() + 1);
+            }
+        }
+    }
 
     @Override
     public void addTask(Task task) {
-        super.addTask(task);
-        save();
+        synchronized (stateLock) {
+            long before = modifications();
+            super.addTask(task);
+            persist(before, JournalOp.ADD, task);
+        }
     }
 
 
     @Override
     public void addEpic(Epic epic) {
-        super.addEpic(epic);
-        save();
+        synchronized (stateLock) {
+            long before = modifications();
+            super.addEpic(epic);
+            persist(before, JournalOp.ADD, epic);
+        }
     }
 
     @Override
     public void addSubTask(SubTask subtask) {
-        super.addSubTask(subtask);
-        save();
+        synchronized (stateLock) {
+            long before = modifications();
+            super.addSubTask(subtask);
+            persist(before, JournalOp.ADD, subtask);
+        }
     }
 
     @Override
     public void updateTask(Task task) {
-        super.updateTask(task);
-        save();
+        synchronized (stateLock) {
+            long before = modifications();
+            super.updateTask(task);
+            persist(before, JournalOp.UPDATE, task);
+        }
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        super.updateEpic(epic);
-        save();
+        synchronized (stateLock) {
+            long before = modifications();
+            super.updateEpic(epic);
+            persist(before, JournalOp.UPDATE, epic);
+        }
     }
 
     @Override
     public void updateSubTask(SubTask subtask) {
-        super.updateSubTask(subtask);
-        save();
+        synchronized (stateLock) {
+            long before = modifications();
+            super.updateSubTask(subtask);
+            persist(before, JournalOp.UPDATE, subtask);
+        }
     }
 
     @Override
     public void removeTaskById(int id) {
-        super.removeTaskById(id);
-        save();
+        synchronized (stateLock) {
+            long before = modifications();
+            super.removeTaskById(id);
+            persist(before, JournalOp.REMOVE, TaskType.TASK, id);
+        }
     }
 
     @Override
     public void removeEpicById(int id) {
-        super.removeEpicById(id);
-        save();
+        synchronized (stateLock) {
+            long before = modifications();
+            super.removeEpicById(id);
+            persist(before, JournalOp.REMOVE, TaskType.EPIC, id);
+        }
     }
 
     @Override
     public void removeSubTaskById(int id) {
-        super.removeSubTaskById(id);
-        save();
+        synchronized (stateLock) {
+            long before = modifications();
+            super.removeSubTaskById(id);
+            persist(before, JournalOp.REMOVE, TaskType.SUBTASK, id);
+        }
     }
 
-    private String toString(Task task) {
-        return String.format("%d,%s,%s,%s,%s,%s,%s,%s",
-                task.getId(),
-                TaskType.TASK,
-                task.getName(),
-                task.getStatus(),
-                task.getDescription(),
-                "",
-                task.getDuration() != null ? task.getDuration().toMinutes() : "",
-                task.getStartTime() != null ? task.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "");
+    @Override
+    public void removeAllTasks() {
+        synchronized (stateLock) {
+            long before = modifications();
+            super.removeAllTasks();
+            persist(before, JournalOp.CLEAR, TaskType.TASK, 0);
+        }
     }
 
-    private String toString(SubTask subTask) {
-        return String.format("%d,%s,%s,%s,%s,%d,%s,%s",
-                subTask.getId(),
-                TaskType.SUBTASK,
-                subTask.getName(),
-                subTask.getStatus(),
-                subTask.getDescription(),
-                subTask.getEpicId(),
-                subTask.getDuration() != null ? subTask.getDuration().toMinutes() : "",
-                subTask.getStartTime() != null ? subTask.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "");
+    @Override
+    public void removeAllEpics() {
+        synchronized (stateLock) {
+            long before = modifications();
+            super.removeAllEpics();
+            persist(before, JournalOp.CLEAR, TaskType.EPIC, 0);
+        }
     }
 
+    @Override
+    public void removeAllSubTasks() {
+        synchronized (stateLock) {
+            long before = modifications();
+            super.removeAllSubTasks();
+            persist(before, JournalOp.CLEAR, TaskType.SUBTASK, 0);
+        }
+    }
 
+    // В журнал и снимок идут только вызовы, поменявшие состояние: пустые
+    // не копят записи и не запускают компакцию
+    private void persist(long before, JournalOp op, Task task) {
+        if (modifications() == before) {
+            return;
+        }
+        if (mode == PersistenceMode.SNAPSHOT) {
+            snapshotChanged();
+        } else if (task != null) {
+            journalRecord(op + "," + encoder.encode(task));
+        }
+    }
 
-    private String toString(Epic epic) {
-        return String.format("%d,%s,%s,%s,%s,%s,%s,%s",
-                epic.getId(),
-                TaskType.EPIC,
-                epic.getName(),
-                epic.getStatus(),
-                epic.getDescription(),
-                "",
-                epic.getDuration() != null ? epic.getDuration().toSeconds() : "",
-                epic.getStartTime() != null ? epic.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "");
+    private void persist(long before, JournalOp op, TaskType type, int id) {
+        if (modifications() == before) {
+            return;
+        }
+        if (mode == PersistenceMode.SNAPSHOT) {
+            snapshotChanged();
+        } else if (op == JournalOp.CLEAR) {
+            journalRecord(op + "," + type);
+        } else {
+            journalRecord(op + "," + type + "," + id);
+        }
+    }
+
+    private void snapshotChanged() {
+        if (batchRecords != null) {
+            return;
+        }
+        if (writeBehindDelay == null) {
+            save();
+            return;
+        }
+        dirty = true;
+        scheduleFlush();
+    }
+
+    private void journalRecord(String record) {
+        journalRecord(record, 1);
+    }
+
+    private void journalRecord(String record, int count) {
+        if (batchRecords != null) {
+            batchRecords.add(record);
+            return;
+        }
+        if (writeBehindDelay == null) {
+            appendToJournal(record + "\n", durability == Durability.FSYNC_ON_WRITE);
+        } else {
+            pendingJournal.append(record).append('\n');
+            scheduleFlush();
+        }
+        journalRecords += count;
+        maybeCompact();
+    }
+
+    private void maybeCompact() {
+        if (compactor == null || compactionScheduled) {
+            return;
+        }
+        long total = snapshotRecords + journalRecords;
+        if (total == 0 || total < minCompactionRecords
+                || total - liveRecords() <= maxGarbageRatio * total) {
+            return;
+        }
+        compactionScheduled = true;
+        compactor.execute(this::backgroundCompact);
     }
 
-    private  void loadFromFile() {
+    private void backgroundCompact() {
+        boolean compacted = false;
         try {
+            compact();
+            compacted = true;
+        } catch (ManagerSaveException e) {
+            // файлы остались согласованными; попробуем снова на следующей записи
+        } finally {
+            synchronized (stateLock) {
+                compactionScheduled = false;
+                // записи, пришедшие во время уплотнения, могли снова превысить порог
+                if (compacted) {
+                    maybeCompact();
+                }
+            }
+        }
+    }
 
-            if (!file.exists()) {
-                return;
+    private long liveRecords() {
+        return entityCount();
+    }
+
+    private File nextSegment() {
+        int next = 1;
+        for (File old : oldSegments()) {
+            next = Math.max(next, segmentNumber(old) + 1);
+        }
+        return new File(journal.getPath() + ".old." + next);
+    }
+
+    // Отрезанные сегменты журнала по возрастанию номера
+    private List<File> oldSegments() {
+        File[] files = journal.getAbsoluteFile().getParentFile()
+                .listFiles((dir, name) -> name.startsWith(journal.getName() + ".old."));
+        List<File> segments = new ArrayList<>();
+        if (files != null) {
+            for (File segment : files) {
+                if (segmentNumber(segment) > 0) {
+                    segments.add(segment);
+                }
             }
+        }
+        segments.sort(Comparator.comparingInt(FileBackedTaskManager::segmentNumber));
+        return segments;
+    }
 
-            List<String> lines = Files.readAllLines(file.toPath());
-            boolean flag = true;
+    private static int segmentNumber(File segment) {
+        String name = segment.getName();
+        try {
+            return Integer.parseInt(name.substring(name.lastIndexOf('.') + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flusher.schedule(this::backgroundFlush, writeBehindDelay.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void backgroundFlush() {
+        boolean sync;
+        synchronized (stateLock) {
+            sync = durability == Durability.FSYNC_ON_WRITE;
+        }
+        try {
+            flush(sync);
+        } catch (ManagerSaveException e) {
+            synchronized (stateLock) {
+                if (flusher != null) {
+                    scheduleFlush();
+                }
+            }
+        }
+    }
 
-            for (String line : lines) {
-                if (flag) {
-                    flag = false;
-                    continue;
+    private void flush(boolean sync) {
+        synchronized (ioLock) {
+            ByteBuffer snapshot = null;
+            String records = null;
+            synchronized (stateLock) {
+                flushScheduled = false;
+                if (dirty) {
+                    snapshot = renderSnapshot();
+                    dirty = false;
                 }
-                if (line.trim().isEmpty()) {
-                    continue;
+                if (pendingJournal.length() > 0) {
+                    records = pendingJournal.toString();
+                    pendingJournal.setLength(0);
                 }
+            }
+            try {
+                if (snapshot != null) {
+                    writeSnapshot(snapshot, sync);
+                }
+                if (records != null) {
+                    appendToJournal(records, sync);
+                }
+                if (sync && unsynced) {
+                    syncFiles();
+                }
+            } catch (ManagerSaveException e) {
+                synchronized (stateLock) {
+                    dirty |= snapshot != null;
+                    if (records != null) {
+                        pendingJournal.insert(0, records);
+                    }
+                }
+                throw e;
+            }
+        }
+    }
 
-                Task task = fromString(line);
-                if (task != null) {
-                    if (task instanceof SubTask) {
-                        super.addSubTask((SubTask) task);
-                    } else if (task instanceof Epic) {
-                        super.addEpic((Epic) task);
-                    } else if (task instanceof Task) {
-                        super.addTask(task);
+    // Файл читается потоково, сущности вставляются со своими id;
+    // эпики и расписание собираются один раз после чтения всего файла.
+    private void loadFromFile() {
+        if (!file.exists()) {
+            return;
+        }
+        if (BinarySnapshot.isBinary(file)) {
+            format = SnapshotFormat.BINARY;
+            BinarySnapshot.read(file, this::restore);
+        } else {
+            try (CsvRecordReader reader = openRecords(file, false)) {
+                reader.next(); // заголовок
+                String line;
+                while ((line = reader.next()) != null) {
+                    if (!line.isBlank()) {
+                        restore(fromString(line));
                     }
                 }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error while loading file", e);
             }
-        } catch (IOException e) {
-            throw new ManagerSaveException("Error while loading file", e);
         }
+        finishRestore();
     }
 
+    private void restore(Task task) {
+        if (task != null) {
+            snapshotRecords++;
+        }
+        if (task instanceof SubTask) {
+            restoreSubTask((SubTask) task);
+        } else if (task instanceof Epic) {
+            restoreEpic((Epic) task);
+        } else if (task != null) {
+            restoreTask(task);
+        }
+    }
 
+    // При ошибке часть блока уже могла попасть на диск: журнал обрезается до прежней
+    // длины, иначе повторная запись блока продублировала бы эти записи. Если не
+    // удалось и обрезать, это повторяется перед следующей записью в журнал.
+    private void appendToJournal(String records, boolean sync) {
+        synchronized (journalLock) {
+            truncateJournal();
+            long size = journal.length();
+            try {
+                writeFile(journal, ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8)), sync, true);
+            } catch (ManagerSaveException e) {
+                journalEnd = size;
+                try {
+                    truncateJournal();
+                } catch (ManagerSaveException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            unsynced |= !sync;
+        }
+    }
 
-    private void save() {
-        try (Writer writer = new FileWriter(file)) {
-            writer.write("id,type,name,status,description,epic,duration,startTime\n");
-            for (Task task : getAllTasks()) {
-                writer.write(toString(task) + "\n");
+    private void truncateJournal() {
+        synchronized (journalLock) {
+            if (journalEnd < 0) {
+                return;
             }
-            for (SubTask subTask : getAllSubTasks()) {
-                writer.write(toString(subTask) + "\n");
+            truncate(journal, journalEnd);
+            journalEnd = -1;
+        }
+    }
+
+    private static void truncate(File target, long length) {
+        if (!target.exists()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error while truncating " + target.getName(), e);
+        }
+    }
+
+    private void syncFiles() {
+        try {
+            for (File target : new File[]{file, journal}) {
+                if (target.exists()) {
+                    try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.WRITE)) {
+                        channel.force(true);
+                    }
+                }
             }
-            for (Epic epic : getAllEpics()) {
-                writer.write(toString(epic) + "\n");
+            unsynced = false;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error while syncing file", e);
+        }
+    }
+
+    // Без .compact уплотнение зафиксировано и отрезанные сегменты уже в снапшоте
+    private void replayJournals() {
+        boolean committed = !compactFile.exists();
+        for (File segment : oldSegments()) {
+            if (committed) {
+                segment.delete();
+            } else {
+                replayJournal(segment);
+            }
+        }
+        replayJournal(journal);
+    }
+
+    // Запись дописывается в журнал вместе с переводом строки, поэтому запись без него
+    // в конце файла оборвана при сбое: она и незавершённый набор отбрасываются,
+    // а файл обрезается до последней целой записи, чтобы новые дописывались после неё.
+    private void replayJournal(File segment) {
+        if (!segment.exists()) {
+            return;
+        }
+        long intact = 0;
+        try (CsvRecordReader reader = openRecords(segment, true)) {
+            String line;
+            while ((line = reader.next()) != null) {
+                if (line.startsWith(JournalOp.BATCH + ",")) {
+                    int size = Integer.parseInt(line.substring(line.indexOf(',') + 1));
+                    if (!replayBatch(reader, size)) {
+                        break;
+                    }
+                    journalRecords += size + 1;
+                } else if (!line.isBlank()) {
+                    replay(line);
+                    journalRecords++;
+                }
+                intact = reader.offset();
             }
         } catch (IOException e) {
-            throw new ManagerSaveException("Error while saving file", e);
+            throw new ManagerSaveException("Error while replaying journal", e);
+        }
+        if (intact < segment.length()) {
+            try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(intact);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error while truncating journal", e);
+            }
         }
+    }
 
+    private boolean replayBatch(CsvRecordReader reader, int size) throws IOException {
+        List<String> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String record = reader.next();
+            if (record == null) {
+                return false;
+            }
+            records.add(record);
+        }
+        runWithoutOverlapCheck(() -> records.forEach(this::replay));
+        return true;
+    }
 
+    private static CsvRecordReader openRecords(File source, boolean journal) throws IOException {
+        return new CsvRecordReader(Files.newInputStream(source.toPath()), journal);
+    }
+
+    private void replay(String record) {
+        int comma = record.indexOf(',');
+        if (comma < 0) {
+            throw new IllegalArgumentException("Invalid journal record" + record);
+        }
+        JournalOp op = JournalOp.valueOf(record.substring(0, comma));
+        String body = record.substring(comma + 1);
+
+        switch (op) {
+            case ADD:
+                Task added = fromString(body);
+                // id в журнале выдавались подряд, поэтому добавление получит тот же id
+                if (added != null) {
+                    reserveId(added.getId() - 1);
+                }
+                if (added instanceof SubTask) {
+                    super.addSubTask((SubTask) added);
+                } else if (added instanceof Epic) {
+                    super.addEpic((Epic) added);
+                } else if (added != null) {
+                    super.addTask(added);
+                }
+                break;
+            case UPDATE:
+                Task updated = fromString(body);
+                if (updated instanceof SubTask) {
+                    super.updateSubTask((SubTask) updated);
+                } else if (updated instanceof Epic) {
+                    super.updateEpic((Epic) updated);
+                } else if (updated != null) {
+                    super.updateTask(updated);
+                }
+                break;
+            case REMOVE:
+                String[] parts = body.split(",");
+                int id = Integer.parseInt(parts[1]);
+                switch (TaskType.valueOf(parts[0])) {
+                    case TASK:
+                        super.removeTaskById(id);
+                        break;
+                    case EPIC:
+                        super.removeEpicById(id);
+                        break;
+                    case SUBTASK:
+                        super.removeSubTaskById(id);
+                        break;
+                }
+                break;
+            case CLEAR:
+                switch (TaskType.valueOf(body)) {
+                    case TASK:
+                        super.removeAllTasks();
+                        break;
+                    case EPIC:
+                        super.removeAllEpics();
+                        break;
+                    case SUBTASK:
+                        super.removeAllSubTasks();
+                        break;
+                }
+                break;
+        }
+    }
+
+    private void save() {
+        writeSnapshot(renderSnapshot(), durability == Durability.FSYNC_ON_WRITE);
+    }
+
+    private ByteBuffer renderSnapshot() {
+        return render(format, encoder, getAllTasks(), getAllEpics(), getAllSubTasks());
+    }
+
+    private static ByteBuffer render(SnapshotFormat format, CsvRowEncoder encoder,
+                                     List<Task> tasks, List<Epic> epics, List<SubTask> subTasks) {
+        if (format == SnapshotFormat.BINARY) {
+            return BinarySnapshot.encode(tasks, epics, subTasks);
+        }
+        StringBuilder builder = encoder.beginSnapshot(HEADER);
+        for (Task task : tasks) {
+            encoder.append(builder, task);
+            builder.append('\n');
+        }
+        for (SubTask subTask : subTasks) {
+            encoder.append(builder, subTask);
+            builder.append('\n');
+        }
+        for (Epic epic : epics) {
+            encoder.append(builder, epic);
+            builder.append('\n');
+        }
+        return StandardCharsets.UTF_8.encode(CharBuffer.wrap(builder));
+    }
+
+    private void writeSnapshot(ByteBuffer content, boolean sync) {
+        writeFile(file, content, sync, false);
+        unsynced |= !sync;
+    }
+
+    private void writeFile(File target, ByteBuffer content, boolean sync, boolean append) {
+        long start = System.nanoTime();
+        int bytes = content.remaining();
+        try (FileOutputStream out = new FileOutputStream(target, append)) {
+            FileChannel channel = out.getChannel();
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            if (sync) {
+                out.getFD().sync();
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error while writing " + target.getName(), e);
+        }
+        if (bytes > 0) {
+            saved(bytes, start);
+        }
+    }
+
+    private void saved(long bytes, long start) {
+        SaveObserver observer = saveObserver;
+        if (observer != null) {
+            observer.onSave(bytes, System.nanoTime() - start);
+        }
     }
 
     private static Task fromString(String str) {
         if (str.startsWith("id,type,name,status,description,epic")) {
             return null;
         }
-        String[] parts = str.split(",");
+        String[] parts = CsvRowEncoder.split(str);
 
         try {
             int id = Integer.parseInt(parts[0]);
@@ -190,8 +927,8 @@ public class FileBackedTaskManager extends InMemoryTaskManager implements TaskMa
             LocalDateTime startTime = null;
 
             if(parts.length > 6 && !parts[6].isEmpty()) {
-                long sec =  Long.parseLong(parts[6]);
-                duration = Duration.ofSeconds(sec);
+                long amount = Long.parseLong(parts[6]);
+                duration = type == TaskType.EPIC ? Duration.ofSeconds(amount) : Duration.ofMinutes(amount);
             }
 
             if(parts.length > 7 && !parts[7].isEmpty()) {
@@ -8,4 +8,7 @@ public interface HistoryManager {
     void add(Task var1);
     List<Task> getHistory();
     void remove(int id);
+
+    // Неизменяемое представление истории; без изменений между вызовами не копируется
+    List<Task> getHistoryView();
 }
@@ -2,6 +2,7 @@ package manager;
 
 import model.Node;
 import model.Task;
+import util.IntHashMap;
 
 import java.util.*;
 
@@ -10,9 +11,20 @@ public class InMemoryHistoryManager implements HistoryManager {
     Node<Task> head;
     Node<Task> tail;
     private int size = 0;
-    private final Map<Integer, Node<Task>> historyMap = new HashMap<>();
+    private final int maxSize;
+    private final IntHashMap<Node<Task>> historyMap = new IntHashMap<>();
+    private List<Task> view;
 
+    public InMemoryHistoryManager() {
+        this(Integer.MAX_VALUE);
+    }
 
+    public InMemoryHistoryManager(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("History size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
 
     @Override
     public void add(Task task){
@@ -25,11 +37,22 @@ public class InMemoryHistoryManager implements HistoryManager {
             removeNode(historyMap.get(taskId));
         }
         linkLast(task);
+        if (size > maxSize) {
+            removeNode(head);
+        }
     }
 
     @Override
     public List<Task> getHistory() {
-        return new ArrayList(getTasks());
+        return getTasks();
+    }
+
+    @Override
+    public List<Task> getHistoryView() {
+        if (view == null) {
+            view = Collections.unmodifiableList(getTasks());
+        }
+        return view;
     }
     @Override
     public void remove(int id){
@@ -52,6 +75,7 @@ public class InMemoryHistoryManager implements HistoryManager {
             tail = newNode;
         }
         size++;
+        view = null;
 
         historyMap.put(task.getId(),newNode);
     }
@@ -59,7 +83,7 @@ public class InMemoryHistoryManager implements HistoryManager {
 
 
     private List<Task> getTasks(){
-        List<Task> tasks = new ArrayList<>();
+        List<Task> tasks = new ArrayList<>(size);
         Node<Task> current = head;
 
         while (current!= null){
@@ -94,6 +118,7 @@ public class InMemoryHistoryManager implements HistoryManager {
         node.next = null;
 
         size--;
+        view = null;
 
         historyMap.remove(node.data.getId());
     }
@@ -3,22 +3,42 @@ import model.Epic;
 import model.SubTask;
 import model.Task;
 import model.TaskStatus;
+import model.TaskType;
+import util.IntHashMap;
+import util.IntList;
+import util.IntMap;
+import util.StringPool;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Flow;
 import java.util.stream.Collectors;
 
 
 public class InMemoryTaskManager implements TaskManager {
-    private final HashMap<Integer, Task> tasks = new HashMap();
-    private final HashMap<Integer, Epic> epics = new HashMap();
-    private final HashMap<Integer, SubTask> subtasks = new HashMap();
+    private final IntMap<Task> tasks = createStorage();
+    private final IntMap<Epic> epics = createStorage();
+    private final IntMap<SubTask> subtasks = createStorage();
+    // Упорядоченные id для постраничной выдачи: страница стоит O(log n + limit)
+    private final NavigableSet<Integer> taskIds = createIdIndex();
+    private final NavigableSet<Integer> epicIds = createIdIndex();
+    private final NavigableSet<Integer> subtaskIds = createIdIndex();
+    private final StatusIndex<Task> taskStatuses = new StatusIndex<>(statusBuckets());
+    private final StatusIndex<Epic> epicStatuses = new StatusIndex<>(statusBuckets());
+    private final StatusIndex<SubTask> subtaskStatuses = new StatusIndex<>(statusBuckets());
+    private final TextIndex textIndex = new TextIndex();
+    private final TaskEventPublisher events = new TaskEventPublisher();
     private final HistoryManager historyManager;
     private int nextId = 1;
-    private final Set<Task> prioritizeTasks = new TreeSet(
-            Comparator.comparing(Task::getStartTime,
-                    Comparator.nullsLast(Comparator.naturalOrder()))
-    );
+    private final ScheduleIndex schedule = new ScheduleIndex();
+    private final IntervalIndex intervalIndex = new IntervalIndex();
+    private List<Task> prioritizedView;
+    private boolean overlapCheckSuspended;
+    private volatile StringPool stringPool;
+    // Растёт на каждом вызове-мутаторе, который что-то поменял: по нему наследники
+    // отличают изменение от пустого вызова (нет эпика, нет id, пустая коллекция)
+    private long modifications;
 
     public InMemoryTaskManager() {
         this.historyManager = Managers.getDefaultHistory();
@@ -28,26 +48,59 @@ public class InMemoryTaskManager implements TaskManager {
         this.historyManager = historyManager;
     }
 
+    // Пул для дедупликации name и description при добавлении, обновлении и загрузке;
+    // null — без дедупликации. Уже сохранённые задачи не перебираются
+    public void setStringPool(StringPool pool) {
+        this.stringPool = pool;
+    }
+
+    public StringPool getStringPool() {
+        return stringPool;
+    }
+
+    protected <V> IntMap<V> createStorage() {
+        return new IntHashMap<>();
+    }
+
+    protected NavigableSet<Integer> createIdIndex() {
+        return new TreeSet<>();
+    }
+
     public void addTask(Task task) {
         if (task != null) {
+            dedup(task);
             if(isTaskOverlappingWithExisting(task)) {
                 throw new RuntimeException("Task already exists");
             }
             task.setId(this.generateId());
+            modifications++;
             this.tasks.put(task.getId(), task);
+            this.taskIds.add(task.getId());
+            this.taskStatuses.put(task);
+            this.textIndex.put(task);
             addToPrioritized(task);
+            if (events.isActive()) {
+                events.created(task);
+            }
         }
     }
 
     public List<Task> getAllTasks() {
-        return this.tasks.values().stream().collect(Collectors.toList());
+        return this.tasks.values();
     }
 
     public void removeAllTasks() {
-        for (Task task : this.tasks.values()) {
-            removeFromPrioritized(task);
+        if (!this.tasks.isEmpty()) {
+            modifications++;
+        }
+        this.tasks.forEachValue(this::removeFromPrioritized);
+        this.tasks.forEachValue(task -> this.textIndex.remove(task.getId()));
+        if (events.isActive()) {
+            this.tasks.forEachValue(events::removed);
         }
         this.tasks.clear();
+        this.taskIds.clear();
+        this.taskStatuses.clear();
     }
 
     public Task getTaskById(int id) {
@@ -60,46 +113,83 @@ public class InMemoryTaskManager implements TaskManager {
 
     public void updateTask(Task task) {
         if (task != null && this.tasks.containsKey(task.getId())) {
+            dedup(task);
             if(isTaskOverlappingWithExisting(task)) {
                 throw new RuntimeException("Task already exists");
             }
-            removeFromPrioritized(this.tasks.get(task.getId()));
+            modifications++;
+            Runnable event = updatedEvent(task, this.taskStatuses);
+            Task old = this.tasks.get(task.getId());
+            removeFromPrioritized(old);
             this.tasks.put(task.getId(), task);
+            this.taskStatuses.put(task);
+            this.textIndex.put(task);
             addToPrioritized(task);
+            if (event != null) {
+                event.run();
+            }
         }
     }
 
     public void removeTaskById(int id) {
         Task task = this.tasks.get(id);
         if (task != null) {
+            modifications++;
             removeFromPrioritized(task); // ДОБАВЛЕНО
             this.tasks.remove(id);
+            this.taskIds.remove(id);
+            this.taskStatuses.remove(id);
+            this.textIndex.remove(id);
             historyManager.remove(id);
+            if (events.isActive()) {
+                events.removed(task);
+            }
         }
     }
 
     public void addEpic(Epic epic) {
         if (epic != null) {
+            dedup(epic);
             epic.setId(this.generateId());
+            modifications++;
             this.epics.put(epic.getId(), epic);
+            this.epicIds.add(epic.getId());
+            this.epicStatuses.put(epic);
+            this.textIndex.put(epic);
+            if (events.isActive()) {
+                events.created(epic);
+            }
         }
     }
 
     public List<Epic> getAllEpics() {
-        return this.epics.values().stream().collect(Collectors.toList());
+        return this.epics.values();
     }
 
     public void removeAllEpics() {
-        for(Epic epic : this.epics.values()) {
-            for(Integer subtaskId : epic.getSubtaskIds()) {
-                SubTask subtask = this.subtasks.get(subtaskId);
-                if (subtask != null) {
-                    removeFromPrioritized(subtask);
+        if (!this.epics.isEmpty()) {
+            modifications++;
+        }
+        this.epics.forEachValue(epic -> epic.getSubtaskIds().forEach(subtaskId -> {
+            SubTask subtask = this.subtasks.get(subtaskId);
+            if (subtask != null) {
+                removeFromPrioritized(subtask);
+                if (events.isActive()) {
+                    events.removed(subtask);
                 }
-                this.subtasks.remove(subtaskId);
             }
+            this.subtasks.remove(subtaskId);
+            this.subtaskIds.remove(subtaskId);
+            this.subtaskStatuses.remove(subtaskId);
+            this.textIndex.remove(subtaskId);
+        }));
+        this.epics.forEachValue(epic -> this.textIndex.remove(epic.getId()));
+        if (events.isActive()) {
+            this.epics.forEachValue(events::removed);
         }
         this.epics.clear();
+        this.epicIds.clear();
+        this.epicStatuses.clear();
     }
 
     public Epic getEpicById(int id) {
@@ -112,22 +202,49 @@ public class InMemoryTaskManager implements TaskManager {
 
     public void updateEpic(Epic epic) {
         if (epic != null && this.epics.containsKey(epic.getId())) {
+            dedup(epic);
+            modifications++;
+            Epic saved = this.epics.get(epic.getId());
+            TaskStatus oldStatus = this.epicStatuses.statusOf(epic.getId());
+            if (saved != epic) {
+                epic.inheritSubtasks(saved);
+            } else {
+                epic.recalculate();
+            }
             this.epics.put(epic.getId(), epic);
-            this.updateEpicStatus(epic);
+            this.epicStatuses.put(epic);
+            this.textIndex.put(epic);
+            if (events.isActive()) {
+                // Границы эпика выводятся из подзадач, а они здесь не менялись
+                events.updated(epic, oldStatus, epic.getStartTime(), epic.getEndTime());
+            }
         }
     }
 
     public void removeEpicById(int id) {
         Epic epic = (Epic)this.epics.get(id);
         if (epic != null) {
-            for(Integer subtaskId : epic.getSubtaskIds()) {
+            modifications++;
+            epic.getSubtaskIds().forEach(subtaskId -> {
                 SubTask subtask = this.subtasks.get(subtaskId);
                 if (subtask != null) {
                     removeFromPrioritized(subtask);
+                    if (events.isActive()) {
+                        events.removed(subtask);
+                    }
                 }
                 this.subtasks.remove(subtaskId);
-            }
+                this.subtaskIds.remove(subtaskId);
+                this.subtaskStatuses.remove(subtaskId);
+                this.textIndex.remove(subtaskId);
+            });
             this.epics.remove(id);
+            this.epicIds.remove(id);
+            this.epicStatuses.remove(id);
+            this.textIndex.remove(id);
+            if (events.isActive()) {
+                events.removed(epic);
+            }
         }
     }
 
@@ -138,39 +255,41 @@ public class InMemoryTaskManager implements TaskManager {
                 if(isTaskOverlappingWithExisting(subTask)) {
                     throw new RuntimeException("Task already exists");
                 }
+                dedup(subTask);
                 subTask.setId(this.generateId());
+                modifications++;
                 this.subtasks.put(subTask.getId(), subTask);
-                epic.addSubtaskId(subTask.getId());
-                if (subTask.getStartTime() != null && subTask.getDuration() != null) {
-                    epic.calculateEndTime(
-                            subTask.getStartTime(),
-                            subTask.getDuration(),
-                            subTask.getEndTime()
-                    );
-                }
-                this.updateEpicStatus(epic);
+                this.subtaskIds.add(subTask.getId());
+                this.subtaskStatuses.put(subTask);
+                this.textIndex.put(subTask);
                 addToPrioritized(subTask);
+                if (events.isActive()) {
+                    events.created(subTask);
+                }
+                recomputeEpic(epic, () -> epic.addSubtask(subTask));
             }
         }
     }
 
     public List<SubTask> getAllSubTasks() {
-        return this.subtasks.values().stream().collect(Collectors.toList());
+        return this.subtasks.values();
     }
 
     public void removeAllSubTasks() {
-        for (SubTask subTask : this.subtasks.values()) {
-            removeFromPrioritized(subTask);
+        if (!this.subtasks.isEmpty()) {
+            modifications++;
         }
-
-        for(Epic epic : this.epics.values()) {
-            epic.getSubtaskIds().clear();
-            epic.clearTime();
-            this.updateEpicStatus(epic);
+        this.subtasks.forEachValue(this::removeFromPrioritized);
+        this.subtasks.forEachValue(subTask -> this.textIndex.remove(subTask.getId()));
+        if (events.isActive()) {
+            this.subtasks.forEachValue(events::removed);
         }
+        this.epics.forEachValue(epic -> recomputeEpic(epic, epic::clearSubtasks));
 
 
         this.subtasks.clear();
+        this.subtaskIds.clear();
+        this.subtaskStatuses.clear();
     }
 
     public SubTask getSubTaskById(int id) {
@@ -183,22 +302,24 @@ public class InMemoryTaskManager implements TaskManager {
 
     public void updateSubTask(SubTask subTask) {
         if (subTask != null && this.subtasks.containsKey(subTask.getId())) {
+            dedup(subTask);
             if(isTaskOverlappingWithExisting(subTask)){
                 throw new RuntimeException("Task already exists");
             }
-            removeFromPrioritized(this.subtasks.get(subTask.getId()));
+            modifications++;
+            Runnable event = updatedEvent(subTask, this.subtaskStatuses);
+            SubTask old = this.subtasks.get(subTask.getId());
+            removeFromPrioritized(old);
             this.subtasks.put(subTask.getId(), subTask);
+            this.subtaskStatuses.put(subTask);
+            this.textIndex.put(subTask);
             addToPrioritized(subTask);
+            if (event != null) {
+                event.run();
+            }
             Epic epic = (Epic)this.epics.get(subTask.getEpicId());
             if (epic != null) {
-                if (subTask.getStartTime() != null && subTask.getDuration() != null) {
-                    epic.calculateEndTime(
-                            subTask.getStartTime(),
-                            subTask.getDuration(),
-                            subTask.getEndTime()
-                    );
-                }
-                this.updateEpicStatus(epic);
+                recomputeEpic(epic, () -> epic.updateSubtask(subTask));
             }
         }
     }
@@ -206,32 +327,276 @@ public class InMemoryTaskManager implements TaskManager {
     public void removeSubTaskById(int id) {
         SubTask subTask = (SubTask)this.subtasks.get(id);
         if (subTask != null) {
+            modifications++;
             removeFromPrioritized(subTask); // ДОБАВЛЕНО
+            if (events.isActive()) {
+                events.removed(subTask);
+            }
 
             Epic epic = (Epic)this.epics.get(subTask.getEpicId());
             if (epic != null) {
-                epic.removeSubtaskId(id);
-                recalculateEpicTime(epic);
-                this.updateEpicStatus(epic);
+                recomputeEpic(epic, () -> epic.removeSubtaskId(id));
             }
             this.subtasks.remove(id);
+            this.subtaskIds.remove(id);
+            this.subtaskStatuses.remove(id);
+            this.textIndex.remove(id);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Task> getTasksByStatus(TaskType type, TaskStatus status) {
+        return (List<Task>) statusIndex(type).get(status);
+    }
+
+    @Override
+    public int countTasksByStatus(TaskType type, TaskStatus status) {
+        return statusIndex(type).count(status);
+    }
+
+    @Override
+    public Map<TaskStatus, Integer> countTasksByStatus(TaskType type) {
+        StatusIndex<?> index = statusIndex(type);
+        Map<TaskStatus, Integer> counts = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            counts.put(status, index.count(status));
         }
+        return counts;
+    }
+
+    // Все пересечения проверяются до первого изменения, поэтому набор либо применяется
+    // целиком, либо отклоняется. Внутри применения проверки отключены: промежуточные
+    // состояния (например, обмен двух задач временем) могут пересекаться.
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        validateBatch(batch);
+        runWithoutOverlapCheck(() -> {
+            for (TaskBatch.Operation operation : batch.operations()) {
+                apply(operation);
+            }
+        });
+    }
+
+    // Раскладка считается по копии индекса отрезков и применяется одним applyBatch,
+    // так что при ошибке менеджер не меняется
+    @Override
+    public SchedulingResult autoSchedule(SchedulingRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Scheduling request is null");
+        }
+        List<Task> targets = new ArrayList<>(request.size());
+        IntHashMap<Boolean> seen = new IntHashMap<>();
+        for (SchedulingRequest.Item item : request.items()) {
+            Task task = this.tasks.get(item.id);
+            if (task == null) {
+                task = this.subtasks.get(item.id);
+            }
+            if (task == null) {
+                throw new IllegalArgumentException("Task not found: " + item.id);
+            }
+            if (task.hasStartTime()) {
+                throw new IllegalArgumentException("Task is already scheduled: " + item.id);
+            }
+            if (task.getDuration() == null || task.getDuration().isNegative()) {
+                throw new IllegalArgumentException("Task has no duration: " + item.id);
+            }
+            if (seen.put(item.id, Boolean.TRUE) != null) {
+                throw new IllegalArgumentException("Task is requested twice: " + item.id);
+            }
+            targets.add(task);
+        }
+        TaskBatch batch = new TaskBatch();
+        SchedulingResult result = AutoScheduler.plan(request, targets, intervalIndex.copy(), batch);
+        if (!batch.isEmpty()) {
+            applyBatch(batch);
+        }
+        return result;
+    }
+
+    protected void runWithoutOverlapCheck(Runnable action) {
+        boolean suspended = overlapCheckSuspended;
+        overlapCheckSuspended = true;
+        try {
+            action.run();
+        } finally {
+            overlapCheckSuspended = suspended;
+        }
+    }
+
+    @Override
+    public Flow.Publisher<TaskEvent> getEvents() {
+        return events;
+    }
+
+    // События, отброшенные из-за переполненных буферов медленных подписчиков
+    public long getDroppedEventCount() {
+        return events.getDroppedCount();
+    }
+
+    @Override
+    public List<Integer> searchTasks(String query, int limit) {
+        checkLimit(limit);
+        return textIndex.search(query, limit);
     }
 
     @Override
     public List<Task> getPrioritizedTasks(){
-        return new ArrayList<>(prioritizeTasks);
+        return schedule.toList();
+    }
+
+    @Override
+    public List<Task> getTasksView() {
+        return this.tasks.valuesView();
+    }
+
+    @Override
+    public List<Epic> getEpicsView() {
+        return this.epics.valuesView();
+    }
+
+    @Override
+    public List<SubTask> getSubTasksView() {
+        return this.subtasks.valuesView();
+    }
+
+    @Override
+    public List<Task> getPrioritizedView() {
+        if (prioritizedView == null) {
+            prioritizedView = Collections.unmodifiableList(schedule.toList());
+        }
+        return prioritizedView;
+    }
+
+    @Override
+    public List<Task> getHistoryView() {
+        return this.historyManager.getHistoryView();
+    }
+
+    // Курсор — id последнего элемента предыдущей страницы, 0 — с начала
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return page(this.taskIds, this.tasks, afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return page(this.epicIds, this.epics, afterId, limit);
+    }
+
+    @Override
+    public List<SubTask> getSubTasksPage(int afterId, int limit) {
+        return page(this.subtaskIds, this.subtasks, afterId, limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedPage(LocalDateTime afterStart, int afterId, int limit) {
+        checkLimit(limit);
+        return schedule.page(afterStart, afterId, limit);
+    }
+
+    @Override
+    public List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        return schedule.startingBetween(from, to);
+    }
+
+    @Override
+    public List<Task> getTasksActiveAt(LocalDateTime time) {
+        List<Task> active = new ArrayList<>();
+        intervalIndex.forEachActive(time, id -> active.add(schedule.get(id)));
+        return active;
+    }
+
+    @Override
+    public TimeSlot findFreeSlot(LocalDateTime from, Duration duration) {
+        List<TimeSlot> slots = findFreeSlots(from, duration, 1);
+        return slots.isEmpty() ? null : slots.get(0);
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(LocalDateTime from, Duration duration, int limit) {
+        if (from == null || duration == null || duration.isNegative()) {
+            throw new IllegalArgumentException("Invalid slot request: from=" + from + ", duration=" + duration);
+        }
+        checkLimit(limit);
+        return intervalIndex.freeSlots(from, duration, limit);
     }
 
     public List<SubTask> getSubTasksByEpicId(int epicId) {
         Epic epic = this.epics.get(epicId);
         return epic == null ? new ArrayList<>() :
                 epic.getSubtaskIds().stream()
-                        .map(this.subtasks::get)
+                        .mapToObj(this.subtasks::get)
                         .filter(Objects::nonNull)
                         .collect(Collectors.toList());
     }
 
+    long modifications() {
+        return modifications;
+    }
+
+    int entityCount() {
+        return this.tasks.size() + this.epics.size() + this.subtasks.size();
+    }
+
+    SubTask findSubTask(int id) {
+        return this.subtasks.get(id);
+    }
+
+    // Массовая загрузка: сущности кладутся в хранилища со своими id без проверок
+    // и пересчётов, связи эпиков и расписание строятся один раз в finishRestore.
+    protected void restoreTask(Task task) {
+        dedup(task);
+        this.tasks.put(task.getId(), task);
+        this.taskIds.add(task.getId());
+        this.taskStatuses.put(task);
+        this.textIndex.put(task);
+        reserveId(task.getId());
+    }
+
+    protected void restoreEpic(Epic epic) {
+        dedup(epic);
+        this.epics.put(epic.getId(), epic);
+        this.epicIds.add(epic.getId());
+        this.textIndex.put(epic);
+        reserveId(epic.getId());
+    }
+
+    protected void restoreSubTask(SubTask subTask) {
+        dedup(subTask);
+        this.subtasks.put(subTask.getId(), subTask);
+        this.subtaskIds.add(subTask.getId());
+        this.subtaskStatuses.put(subTask);
+        this.textIndex.put(subTask);
+        reserveId(subTask.getId());
+    }
+
+    protected void finishRestore() {
+        IntList orphans = new IntList();
+        this.subtasks.forEachValue(subTask -> {
+            Epic epic = this.epics.get(subTask.getEpicId());
+            if (epic == null) {
+                orphans.add(subTask.getId());
+            } else {
+                epic.addSubtask(subTask);
+            }
+        });
+        orphans.forEach(this.subtasks::remove);
+        orphans.forEach(this.subtaskIds::remove);
+        orphans.forEach(this.subtaskStatuses::remove);
+        orphans.forEach(this.textIndex::remove);
+        this.epics.forEachValue(this.epicStatuses::put);
+        this.tasks.forEachValue(this::addToPrioritized);
+        this.subtasks.forEachValue(this::addToPrioritized);
+    }
+
+    // Следующий выданный id будет не меньше id + 1
+    protected void reserveId(int id) {
+        if (id >= this.nextId) {
+            this.nextId = id + 1;
+        }
+    }
+
     public List<Task> getHistory() {
         return this.historyManager.getHistory();
     }
@@ -240,88 +605,252 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public boolean isTasksOverlap(Task var1, Task var2){
         if(var1 == null || var2 == null ||
-                var1.getStartTime() == null || var2.getStartTime() == null ||
-                var1.getEndTime() == null || var2.getEndTime() == null){
+                !var1.hasStartTime() || !var2.hasStartTime() ||
+                !var1.hasEndTime() || !var2.hasEndTime()){
             return false;
         }
-        LocalDateTime startTime1 = var1.getStartTime();
-        LocalDateTime endTime1 = var1.getEndTime();
-        LocalDateTime startTime2 = var2.getStartTime();
-        LocalDateTime endTime2 = var2.getEndTime();
 
-        return !(endTime1.isBefore(startTime2) || endTime2.isBefore(startTime1));
+        return !(endsBefore(var1, var2) || endsBefore(var2, var1));
+    }
+
+    private static boolean endsBefore(Task task, Task next) {
+        return IntervalIndex.compare(task.getEndSecond(), task.getEndNano(),
+                next.getStartSecond(), next.getStartNano()) < 0;
     }
 
     private boolean isTaskOverlappingWithExisting(Task newTask) {
-        if(newTask == null || newTask.getStartTime() == null || newTask.getEndTime() == null){
+        if(overlapCheckSuspended || newTask == null || !newTask.hasStartTime() || !newTask.hasEndTime()){
             return false;
         }
 
-        return prioritizeTasks.stream()
-                .filter(task -> task != null && task.getStartTime() != null && task.getDuration() != null)
-                .filter(task -> !task.equals(newTask))
-                .filter(task -> task.getId()!= newTask.getId())
-                .anyMatch(existingTask -> isTasksOverlap(newTask, existingTask));
+        return intervalIndex.overlaps(newTask, newTask.getId());
     }
-    private int generateId() {
-        return this.nextId++;
+    private static <V> List<V> page(NavigableSet<Integer> ids, IntMap<V> storage, int afterId, int limit) {
+        checkLimit(limit);
+        List<V> page = new ArrayList<>(Math.min(limit, storage.size()));
+        Iterator<Integer> iterator = ids.tailSet(afterId, false).iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            V value = storage.get(iterator.next());
+            if (value != null) {
+                page.add(value);
+            }
+        }
+        return page;
     }
 
-    private void updateEpicStatus(Epic epic) {
-        if (epic != null) {
-            List<Integer> subtaskIds = epic.getSubtaskIds();
-            if (subtaskIds.isEmpty()) {
-                epic.setStatus(TaskStatus.NEW);
-            } else {
+    private static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+    }
 
-                List<SubTask> subTaskList = subtaskIds.stream()
-                        .map(this.subtasks::get)
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toList());
+    private void apply(TaskBatch.Operation operation) {
+        switch (operation.kind) {
+            case ADD:
+                switch (operation.type) {
+                    case TASK:
+                        addTask(operation.task);
+                        break;
+                    case EPIC:
+                        addEpic((Epic) operation.task);
+                        break;
+                    case SUBTASK:
+                        addSubTask((SubTask) operation.task);
+                        break;
+                }
+                break;
+            case UPDATE:
+                switch (operation.type) {
+                    case TASK:
+                        updateTask(operation.task);
+                        break;
+                    case EPIC:
+                        updateEpic((Epic) operation.task);
+                        break;
+                    case SUBTASK:
+                        updateSubTask((SubTask) operation.task);
+                        break;
+                }
+                break;
+            case REMOVE:
+                switch (operation.type) {
+                    case TASK:
+                        removeTaskById(operation.id);
+                        break;
+                    case EPIC:
+                        removeEpicById(operation.id);
+                        break;
+                    case SUBTASK:
+                        removeSubTaskById(operation.id);
+                        break;
+                }
+                break;
+        }
+    }
 
+    // Итоговое расписание набора: существующие задачи, которые набор меняет или удаляет,
+    // освобождают свои места, новые и изменённые занимают. Новые отрезки сортируются
+    // и проверяются одним проходом между собой, затем каждый — по интервальному индексу.
+    private void validateBatch(TaskBatch batch) {
+        IntHashMap<Task> vacated = new IntHashMap<>();
+        IntHashMap<Task> updated = new IntHashMap<>();
+        IntHashMap<Epic> removedEpics = new IntHashMap<>();
+        List<Task> added = new ArrayList<>();
+        for (TaskBatch.Operation operation : batch.operations()) {
+            Task task = operation.task;
+            switch (operation.kind) {
+                case ADD:
+                    if (operation.type == TaskType.TASK) {
+                        added.add(task);
+                    } else if (operation.type == TaskType.SUBTASK) {
+                        int epicId = ((SubTask) task).getEpicId();
+                        if (this.epics.containsKey(epicId) && !removedEpics.containsKey(epicId)) {
+                            added.add(task);
+                        }
+                    }
+                    break;
+                case UPDATE:
+                    IntMap<? extends Task> storage = operation.type == TaskType.TASK ? this.tasks
+                            : operation.type == TaskType.SUBTASK ? this.subtasks : null;
+                    if (storage != null && storage.containsKey(task.getId())) {
+                        vacated.put(task.getId(), storage.get(task.getId()));
+                        updated.put(task.getId(), task);
+                    }
+                    break;
+                case REMOVE:
+                    if (operation.type == TaskType.EPIC) {
+                        Epic epic = this.epics.get(operation.id);
+                        if (epic != null) {
+                            removedEpics.put(operation.id, epic);
+                            epic.getSubtaskIds().forEach(subtaskId -> {
+                                SubTask subTask = this.subtasks.get(subtaskId);
+                                if (subTask != null) {
+                                    vacated.put(subtaskId, subTask);
+                                }
+                                updated.remove(subtaskId);
+                            });
+                            added.removeIf(candidate -> candidate instanceof SubTask
+                                    && ((SubTask) candidate).getEpicId() == operation.id);
+                        }
+                    } else {
+                        Task existing = operation.type == TaskType.TASK
+                                ? this.tasks.get(operation.id) : this.subtasks.get(operation.id);
+                        if (existing != null) {
+                            vacated.put(operation.id, existing);
+                        }
+                        updated.remove(operation.id);
+                    }
+                    break;
+            }
+        }
 
+        List<Task> candidates = new ArrayList<>(added.size() + updated.size());
+        for (Task task : added) {
+            if (task.hasStartTime() && task.hasEndTime()) {
+                candidates.add(task);
+            }
+        }
+        updated.forEachValue(task -> {
+            if (task.hasStartTime() && task.hasEndTime()) {
+                candidates.add(task);
+            }
+        });
+        candidates.sort(Comparator.comparingLong(Task::getStartSecond).thenComparingInt(Task::getStartNano));
 
-                boolean allDONE = subTaskList.stream()
-                        .allMatch(task -> task.getStatus() == TaskStatus.DONE);
+        Task last = null;
+        for (Task task : candidates) {
+            if (last != null && !endsBefore(last, task)) {
+                throw new RuntimeException("Task already exists");
+            }
+            last = task;
+            if (intervalIndex.overlaps(task, vacated::containsKey)) {
+                throw new RuntimeException("Task already exists");
+            }
+        }
+    }
 
-                boolean allNEW = subTaskList.stream()
-                        .allMatch(task -> task.getStatus() == TaskStatus.NEW);
+    // Прежние статус и границы берутся из индексов до их обновления: объект в хранилище
+    // мог быть изменён на месте. Без подписчиков ничего не вычисляется
+    private Runnable updatedEvent(Task task, StatusIndex<? extends Task> statuses) {
+        if (!events.isActive()) {
+            return null;
+        }
+        int id = task.getId();
+        TaskStatus status = statuses.statusOf(id);
+        LocalDateTime startTime = schedule.startOf(id);
+        LocalDateTime endTime = intervalIndex.endOf(id);
+        return () -> events.updated(task, status, startTime, endTime);
+    }
 
-                if (allDONE) {
-                    epic.setStatus(TaskStatus.DONE);
-                } else if (allNEW) {
-                    epic.setStatus(TaskStatus.NEW);
-                } else {
-                    epic.setStatus(TaskStatus.IN_PROGRESS);
-                }
-            }
+    // Агрегаты эпика пересчитываются внутри Epic; здесь обновляем индекс статусов
+    // и сообщаем подписчикам, если статус или границы эпика изменились
+    private void recomputeEpic(Epic epic, Runnable change) {
+        if (!events.isActive()) {
+            change.run();
+            this.epicStatuses.put(epic);
+            return;
+        }
+        TaskStatus status = this.epicStatuses.statusOf(epic.getId());
+        LocalDateTime startTime = epic.getStartTime();
+        LocalDateTime endTime = epic.getEndTime();
+        change.run();
+        this.epicStatuses.put(epic);
+        if (status != epic.getStatus()
+                || !Objects.equals(startTime, epic.getStartTime())
+                || !Objects.equals(endTime, epic.getEndTime())) {
+            events.epicRecomputed(epic, status, startTime, endTime);
         }
     }
 
-    private void addToPrioritized(Task task) {
-        if (task != null && task.getStartTime() != null) {
-            prioritizeTasks.add(task);
+    private StatusIndex<? extends Task> statusIndex(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return epicStatuses;
+            case SUBTASK:
+                return subtaskStatuses;
+            default:
+                return taskStatuses;
         }
     }
 
-    private void removeFromPrioritized(Task task) {
-        if (task != null) {
-            prioritizeTasks.remove(task);
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <T> IntMap<T>[] statusBuckets() {
+        IntMap<T>[] buckets = new IntMap[TaskStatus.values().length];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = createStorage();
         }
+        return buckets;
     }
 
+    private void dedup(Task task) {
+        StringPool pool = stringPool;
+        if (pool != null) {
+            task.setName(pool.intern(task.getName()));
+            task.setDescription(pool.intern(task.getDescription()));
+        }
+    }
 
-    private void recalculateEpicTime(Epic epic) {
-        epic.clearTime();
+    private int generateId() {
+        return this.nextId++;
+    }
+
+    private void addToPrioritized(Task task) {
+        if (task != null && task.hasStartTime()) {
+            schedule.add(task);
+            prioritizedView = null;
+            if (task.hasEndTime()) {
+                intervalIndex.add(task);
+            }
+        }
+    }
 
-        epic.getSubtaskIds().stream()
-                .map(this.subtasks::get)
-                .filter(Objects::nonNull)
-                .filter(subTask -> subTask.getStartTime() != null && subTask.getDuration() != null)
-                .forEach(subTask -> epic.calculateEndTime(
-                        subTask.getStartTime(),
-                        subTask.getDuration(),
-                        subTask.getEndTime()
-                ));
+    private void removeFromPrioritized(Task task) {
+        if (task == null) {
+            return;
+        }
+        if (schedule.remove(task.getId()) != null) {
+            prioritizedView = null;
+            intervalIndex.remove(task.getId());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,527 @@
+package manager;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+
+// Декоратор, который замеряет каждый вызов TaskManager: число вызовов и гистограмма
+// задержек на операцию, размер и длительность записей на диск, размер истории.
+// Счётчики полосатые (LongAdder и полосы гистограммы), поэтому потоки-писатели
+// не спорят за одну кэш-линию. Срез всех метрик — getMetrics.
+public class InstrumentedTaskManager implements TaskManager {
+    public enum Operation {
+        ADD_TASK,
+        GET_ALL_TASKS,
+        REMOVE_ALL_TASKS,
+        GET_TASK_BY_ID,
+        UPDATE_TASK,
+        REMOVE_TASK_BY_ID,
+        ADD_EPIC,
+        GET_ALL_EPICS,
+        REMOVE_ALL_EPICS,
+        GET_EPIC_BY_ID,
+        UPDATE_EPIC,
+        REMOVE_EPIC_BY_ID,
+        ADD_SUB_TASK,
+        GET_ALL_SUB_TASKS,
+        REMOVE_ALL_SUB_TASKS,
+        GET_SUB_TASK_BY_ID,
+        UPDATE_SUB_TASK,
+        REMOVE_SUB_TASK_BY_ID,
+        GET_SUB_TASKS_BY_EPIC_ID,
+        GET_HISTORY,
+        GET_PRIORITIZED_TASKS,
+        IS_TASKS_OVERLAP,
+        GET_TASKS_VIEW,
+        GET_EPICS_VIEW,
+        GET_SUB_TASKS_VIEW,
+        GET_PRIORITIZED_VIEW,
+        GET_HISTORY_VIEW,
+        GET_TASKS_PAGE,
+        GET_EPICS_PAGE,
+        GET_SUB_TASKS_PAGE,
+        GET_PRIORITIZED_PAGE,
+        GET_TASKS_STARTING_BETWEEN,
+        GET_TASKS_ACTIVE_AT,
+        FIND_FREE_SLOT,
+        FIND_FREE_SLOTS,
+        GET_TASKS_BY_STATUS,
+        COUNT_TASKS_BY_STATUS,
+        SEARCH_TASKS,
+        APPLY_BATCH,
+        AUTO_SCHEDULE
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final TaskManager delegate;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final LatencyHistogram saves = new LatencyHistogram();
+    private final LongAdder savedBytes = new LongAdder();
+
+    public InstrumentedTaskManager(TaskManager delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate manager is null");
+        }
+        this.delegate = delegate;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        if (delegate instanceof FileBackedTaskManager) {
+            // Уже поставленный наблюдатель (в том числе другой обёртки) не теряется
+            FileBackedTaskManager fileBacked = (FileBackedTaskManager) delegate;
+            FileBackedTaskManager.SaveObserver previous = fileBacked.getSaveObserver();
+            fileBacked.setSaveObserver(previous == null ? this::recordSave : (bytes, nanos) -> {
+                previous.onSave(bytes, nanos);
+                recordSave(bytes, nanos);
+            });
+        }
+    }
+
+    public TaskManager getDelegate() {
+        return delegate;
+    }
+
+    public MetricsSnapshot getMetrics() {
+        EnumMap<Operation, MetricsSnapshot.LatencyStats> operations = new EnumMap<>(Operation.class);
+        for (Operation operation : OPERATIONS) {
+            operations.put(operation, latencies[operation.ordinal()].snapshot());
+        }
+        return new MetricsSnapshot(operations, saves.snapshot(), savedBytes.sum(),
+                delegate.getHistoryView().size());
+    }
+
+    void recordSave(long bytes, long nanos) {
+        savedBytes.add(bytes);
+        saves.record(nanos);
+    }
+
+    private void record(Operation operation, long start) {
+        latencies[operation.ordinal()].record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void addTask(Task task) {
+        long start = System.nanoTime();
+        try {
+            delegate.addTask(task);
+        } finally {
+            record(Operation.ADD_TASK, start);
+        }
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllTasks();
+        } finally {
+            record(Operation.GET_ALL_TASKS, start);
+        }
+    }
+
+    @Override
+    public void removeAllTasks() {
+        long start = System.nanoTime();
+        try {
+            delegate.removeAllTasks();
+        } finally {
+            record(Operation.REMOVE_ALL_TASKS, start);
+        }
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTaskById(id);
+        } finally {
+            record(Operation.GET_TASK_BY_ID, start);
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateTask(task);
+        } finally {
+            record(Operation.UPDATE_TASK, start);
+        }
+    }
+
+    @Override
+    public void removeTaskById(int id) {
+        long start = System.nanoTime();
+        try {
+            delegate.removeTaskById(id);
+        } finally {
+            record(Operation.REMOVE_TASK_BY_ID, start);
+        }
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        long start = System.nanoTime();
+        try {
+            delegate.addEpic(epic);
+        } finally {
+            record(Operation.ADD_EPIC, start);
+        }
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllEpics();
+        } finally {
+            record(Operation.GET_ALL_EPICS, start);
+        }
+    }
+
+    @Override
+    public void removeAllEpics() {
+        long start = System.nanoTime();
+        try {
+            delegate.removeAllEpics();
+        } finally {
+            record(Operation.REMOVE_ALL_EPICS, start);
+        }
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getEpicById(id);
+        } finally {
+            record(Operation.GET_EPIC_BY_ID, start);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateEpic(epic);
+        } finally {
+            record(Operation.UPDATE_EPIC, start);
+        }
+    }
+
+    @Override
+    public void removeEpicById(int id) {
+        long start = System.nanoTime();
+        try {
+            delegate.removeEpicById(id);
+        } finally {
+            record(Operation.REMOVE_EPIC_BY_ID, start);
+        }
+    }
+
+    @Override
+    public void addSubTask(SubTask subTask) {
+        long start = System.nanoTime();
+        try {
+            delegate.addSubTask(subTask);
+        } finally {
+            record(Operation.ADD_SUB_TASK, start);
+        }
+    }
+
+    @Override
+    public List<SubTask> getAllSubTasks() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllSubTasks();
+        } finally {
+            record(Operation.GET_ALL_SUB_TASKS, start);
+        }
+    }
+
+    @Override
+    public void removeAllSubTasks() {
+        long start = System.nanoTime();
+        try {
+            delegate.removeAllSubTasks();
+        } finally {
+            record(Operation.REMOVE_ALL_SUB_TASKS, start);
+        }
+    }
+
+    @Override
+    public SubTask getSubTaskById(int id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSubTaskById(id);
+        } finally {
+            record(Operation.GET_SUB_TASK_BY_ID, start);
+        }
+    }
+
+    @Override
+    public void updateSubTask(SubTask subTask) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateSubTask(subTask);
+        } finally {
+            record(Operation.UPDATE_SUB_TASK, start);
+        }
+    }
+
+    @Override
+    public void removeSubTaskById(int id) {
+        long start = System.nanoTime();
+        try {
+            delegate.removeSubTaskById(id);
+        } finally {
+            record(Operation.REMOVE_SUB_TASK_BY_ID, start);
+        }
+    }
+
+    @Override
+    public List<SubTask> getSubTasksByEpicId(int epicId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSubTasksByEpicId(epicId);
+        } finally {
+            record(Operation.GET_SUB_TASKS_BY_EPIC_ID, start);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getHistory();
+        } finally {
+            record(Operation.GET_HISTORY, start);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getPrioritizedTasks();
+        } finally {
+            record(Operation.GET_PRIORITIZED_TASKS, start);
+        }
+    }
+
+    @Override
+    public boolean isTasksOverlap(Task task, Task other) {
+        long start = System.nanoTime();
+        try {
+            return delegate.isTasksOverlap(task, other);
+        } finally {
+            record(Operation.IS_TASKS_OVERLAP, start);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksView() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTasksView();
+        } finally {
+            record(Operation.GET_TASKS_VIEW, start);
+        }
+    }
+
+    @Override
+    public List<Epic> getEpicsView() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getEpicsView();
+        } finally {
+            record(Operation.GET_EPICS_VIEW, start);
+        }
+    }
+
+    @Override
+    public List<SubTask> getSubTasksView() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSubTasksView();
+        } finally {
+            record(Operation.GET_SUB_TASKS_VIEW, start);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedView() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getPrioritizedView();
+        } finally {
+            record(Operation.GET_PRIORITIZED_VIEW, start);
+        }
+    }
+
+    @Override
+    public List<Task> getHistoryView() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getHistoryView();
+        } finally {
+            record(Operation.GET_HISTORY_VIEW, start);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTasksPage(afterId, limit);
+        } finally {
+            record(Operation.GET_TASKS_PAGE, start);
+        }
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getEpicsPage(afterId, limit);
+        } finally {
+            record(Operation.GET_EPICS_PAGE, start);
+        }
+    }
+
+    @Override
+    public List<SubTask> getSubTasksPage(int afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSubTasksPage(afterId, limit);
+        } finally {
+            record(Operation.GET_SUB_TASKS_PAGE, start);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedPage(LocalDateTime afterStart, int afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getPrioritizedPage(afterStart, afterId, limit);
+        } finally {
+            record(Operation.GET_PRIORITIZED_PAGE, start);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTasksStartingBetween(from, to);
+        } finally {
+            record(Operation.GET_TASKS_STARTING_BETWEEN, start);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksActiveAt(LocalDateTime time) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTasksActiveAt(time);
+        } finally {
+            record(Operation.GET_TASKS_ACTIVE_AT, start);
+        }
+    }
+
+    @Override
+    public TimeSlot findFreeSlot(LocalDateTime from, Duration duration) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findFreeSlot(from, duration);
+        } finally {
+            record(Operation.FIND_FREE_SLOT, start);
+        }
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(LocalDateTime from, Duration duration, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findFreeSlots(from, duration, limit);
+        } finally {
+            record(Operation.FIND_FREE_SLOTS, start);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskType type, TaskStatus status) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTasksByStatus(type, status);
+        } finally {
+            record(Operation.GET_TASKS_BY_STATUS, start);
+        }
+    }
+
+    @Override
+    public int countTasksByStatus(TaskType type, TaskStatus status) {
+        long start = System.nanoTime();
+        try {
+            return delegate.countTasksByStatus(type, status);
+        } finally {
+            record(Operation.COUNT_TASKS_BY_STATUS, start);
+        }
+    }
+
+    @Override
+    public Map<TaskStatus, Integer> countTasksByStatus(TaskType type) {
+        long start = System.nanoTime();
+        try {
+            return delegate.countTasksByStatus(type);
+        } finally {
+            record(Operation.COUNT_TASKS_BY_STATUS, start);
+        }
+    }
+
+    @Override
+    public List<Integer> searchTasks(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchTasks(query, limit);
+        } finally {
+            record(Operation.SEARCH_TASKS, start);
+        }
+    }
+
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        long start = System.nanoTime();
+        try {
+            delegate.applyBatch(batch);
+        } finally {
+            record(Operation.APPLY_BATCH, start);
+        }
+    }
+
+    @Override
+    public SchedulingResult autoSchedule(SchedulingRequest request) {
+        long start = System.nanoTime();
+        try {
+            return delegate.autoSchedule(request);
+        } finally {
+            record(Operation.AUTO_SCHEDULE, start);
+        }
+    }
+
+    @Override
+    public Flow.Publisher<TaskEvent> getEvents() {
+        return delegate.getEvents();
+    }
+}
@@ -0,0 +1,463 @@
+package manager;
+
+import model.Task;
+import util.IntHashMap;
+
+import java.math.BigInteger;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+// Декартово дерево отрезков [start, end], упорядоченное по (start, id).
+// В каждом узле хранится максимальный end поддерева, поэтому поиск
+// пересечения стоит O(log n + k). Границы запоминаются при добавлении,
+// так что удаление не зависит от того, что потом сделали с объектом задачи.
+// Для поиска свободного времени узел ещё хранит начало поддерева и наибольший
+// зазор между соседними отрезками внутри него.
+// Моменты времени — пары (секунды эпохи UTC, наносекунды), как в Task: одно long
+// в наносекундах покрывает только 1677–2262 годы, а пара — весь LocalDateTime.
+class IntervalIndex {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final BigInteger NANOS = BigInteger.valueOf(NANOS_PER_SECOND);
+    // Разница в секундах, за которой зазор в наносекундах уже не помещается в long
+    private static final long MAX_GAP_SECONDS = Long.MAX_VALUE / NANOS_PER_SECOND - 1;
+    private static final long MAX_SECOND = LocalDateTime.MAX.toEpochSecond(ZoneOffset.UTC);
+
+    private static final class Node {
+        final int id;
+        final long startSecond;
+        final int startNano;
+        final long endSecond;
+        final int endNano;
+        final int priority;
+        long maxEndSecond;
+        int maxEndNano;
+        long minStartSecond;
+        int minStartNano;
+        // Зазор в наносекундах с насыщением
+        long maxGap;
+        Node left;
+        Node right;
+
+        Node(int id, long startSecond, int startNano, long endSecond, int endNano, int priority) {
+            this.id = id;
+            this.startSecond = startSecond;
+            this.startNano = startNano;
+            this.endSecond = endSecond;
+            this.endNano = endNano;
+            this.priority = priority;
+            this.maxEndSecond = endSecond;
+            this.maxEndNano = endNano;
+            this.minStartSecond = startSecond;
+            this.minStartNano = startNano;
+            this.maxGap = Long.MIN_VALUE;
+        }
+    }
+
+    private final IntHashMap<Node> nodes = new IntHashMap<>();
+    private Node root;
+    private int seed = 0x2545F491;
+
+    // У задачи должны быть и начало, и конец
+    void add(Task task) {
+        add(task.getId(), task.getStartSecond(), task.getStartNano(), task.getEndSecond(), task.getEndNano());
+    }
+
+    void add(int id, LocalDateTime start, LocalDateTime end) {
+        add(id, start.toEpochSecond(ZoneOffset.UTC), start.getNano(), end.toEpochSecond(ZoneOffset.UTC), end.getNano());
+    }
+
+    private void add(int id, long startSecond, int startNano, long endSecond, int endNano) {
+        remove(id);
+        Node node = new Node(id, startSecond, startNano, endSecond, endNano, nextPriority());
+        nodes.put(id, node);
+        root = insert(root, node);
+    }
+
+    void remove(int id) {
+        Node node = nodes.remove(id);
+        if (node != null) {
+            root = delete(root, node);
+        }
+    }
+
+    // Конец, с которым отрезок был добавлен; null — отрезка нет
+    LocalDateTime endOf(int id) {
+        Node node = nodes.get(id);
+        return node == null ? null : LocalDateTime.ofEpochSecond(node.endSecond, node.endNano, ZoneOffset.UTC);
+    }
+
+    boolean contains(int id) {
+        return nodes.containsKey(id);
+    }
+
+    // Отрезки считаются замкнутыми, как в InMemoryTaskManager.isTasksOverlap
+    boolean overlaps(Task task, int excludeId) {
+        return overlaps(task, id -> id == excludeId);
+    }
+
+    boolean overlaps(Task task, IntPredicate excluded) {
+        return overlaps(root, task.getStartSecond(), task.getStartNano(), task.getEndSecond(), task.getEndNano(),
+                excluded);
+    }
+
+    // Отрезки, идущие в момент time (start <= time < end), по возрастанию начала
+    void forEachActive(LocalDateTime time, IntConsumer action) {
+        forEachActive(root, time.toEpochSecond(ZoneOffset.UTC), time.getNano(), action);
+    }
+
+    // Первые limit свободных окон длиной не меньше duration, начиная с момента from.
+    // Окна замкнуты и не касаются отрезков; последнее окно открыто справа (end == null).
+    // Поддеревья, где нет зазора нужной длины, пропускаются целиком по maxGap,
+    // так что каждое окно стоит O(log n), пока отрезки не пересекаются.
+    List<TimeSlot> freeSlots(LocalDateTime from, Duration duration, int limit) {
+        return search(from, duration, limit).slots;
+    }
+
+    // Самое раннее начало не раньше from, кратное step от эпохи, с которого замкнутый
+    // отрезок длины duration не касается ни одного отрезка индекса. null — места нет
+    LocalDateTime firstFit(LocalDateTime from, Duration duration, Duration step) {
+        while (true) {
+            List<TimeSlot> slots = search(from, duration, 1).slots;
+            if (slots.isEmpty()) {
+                return null;
+            }
+            TimeSlot slot = slots.get(0);
+            LocalDateTime start = align(slot.getStart(), step);
+            LocalDateTime end = start == null ? null : plus(start, duration);
+            if (end != null && (slot.isUnbounded() || !end.isAfter(slot.getEnd()))) {
+                return start;
+            }
+            if (slot.isUnbounded()) {
+                return null;
+            }
+            // Выравнивание съело окно: ищем дальше за ним
+            from = slot.getEnd().plusNanos(1);
+        }
+    }
+
+    IntervalIndex copy() {
+        IntervalIndex copy = new IntervalIndex();
+        copy.root = copy(root, copy.nodes);
+        copy.seed = seed;
+        return copy;
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    void clear() {
+        nodes.clear();
+        root = null;
+    }
+
+    static int compare(long second, int nano, long otherSecond, int otherNano) {
+        int bySecond = Long.compare(second, otherSecond);
+        return bySecond != 0 ? bySecond : Integer.compare(nano, otherNano);
+    }
+
+    // null, если сумма выходит за LocalDateTime.MAX
+    static LocalDateTime plus(LocalDateTime time, Duration duration) {
+        try {
+            return time.plus(duration);
+        } catch (DateTimeException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    // Зазор в наносекундах между концом одного отрезка и началом следующего, с насыщением
+    private static long gap(long endSecond, int endNano, long startSecond, int startNano) {
+        long seconds = startSecond - endSecond;
+        if (seconds > MAX_GAP_SECONDS) {
+            return Long.MAX_VALUE;
+        }
+        if (seconds < -MAX_GAP_SECONDS) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * NANOS_PER_SECOND + (startNano - endNano);
+    }
+
+    private GapSearch search(LocalDateTime from, Duration duration, int limit) {
+        GapSearch search = new GapSearch(from, duration, limit);
+        search.visit(root);
+        // Хвост после последнего отрезка; если он кончается в LocalDateTime.MAX, хвоста нет
+        if (search.slots.size() < limit
+                && compare(search.coveredSecond, search.coveredNano, MAX_SECOND, LocalDateTime.MAX.getNano()) < 0) {
+            search.found(search.coveredSecond, search.coveredNano, 0, 0, false);
+        }
+        return search;
+    }
+
+    // Ближайший момент не раньше time, кратный step от эпохи; null — за LocalDateTime.MAX
+    private static LocalDateTime align(LocalDateTime time, Duration step) {
+        BigInteger nanos = BigInteger.valueOf(time.toEpochSecond(ZoneOffset.UTC)).multiply(NANOS)
+                .add(BigInteger.valueOf(time.getNano()));
+        BigInteger stepNanos = BigInteger.valueOf(step.getSeconds()).multiply(NANOS)
+                .add(BigInteger.valueOf(step.getNano()));
+        BigInteger rest = nanos.mod(stepNanos);
+        if (rest.signum() == 0) {
+            return time;
+        }
+        BigInteger[] shift = stepNanos.subtract(rest).divideAndRemainder(NANOS);
+        return plus(time, Duration.ofSeconds(shift[0].longValue(), shift[1].longValue()));
+    }
+
+    private static Node copy(Node node, IntHashMap<Node> nodes) {
+        if (node == null) {
+            return null;
+        }
+        Node copy = new Node(node.id, node.startSecond, node.startNano, node.endSecond, node.endNano, node.priority);
+        copy.left = copy(node.left, nodes);
+        copy.right = copy(node.right, nodes);
+        copy.maxEndSecond = node.maxEndSecond;
+        copy.maxEndNano = node.maxEndNano;
+        copy.minStartSecond = node.minStartSecond;
+        copy.minStartNano = node.minStartNano;
+        copy.maxGap = node.maxGap;
+        nodes.put(copy.id, copy);
+        return copy;
+    }
+
+    // Обход по порядку начала; covered — самый поздний занятый момент среди пройденных
+    // (в начале — момент перед from). Окно вмещает отрезок, если зазор не меньше
+    // duration + 2 нс; зазоры длиннее ~292 лет насыщены и сверяются с Duration точно.
+    private static final class GapSearch {
+        final Duration duration;
+        final long minGap;
+        final int limit;
+        final List<TimeSlot> slots = new ArrayList<>();
+        long coveredSecond;
+        int coveredNano;
+
+        GapSearch(LocalDateTime from, Duration duration, int limit) {
+            this.duration = duration;
+            this.minGap = gapFor(duration);
+            this.limit = limit;
+            this.coveredSecond = from.toEpochSecond(ZoneOffset.UTC);
+            this.coveredNano = from.getNano() - 1;
+            if (coveredNano < 0) {
+                coveredSecond--;
+                coveredNano += NANOS_PER_SECOND;
+            }
+        }
+
+        void visit(Node node) {
+            if (node == null || slots.size() >= limit
+                    || compare(node.maxEndSecond, node.maxEndNano, coveredSecond, coveredNano) <= 0) {
+                return;
+            }
+            // maxGap считался без отрезков левее поддерева, поэтому он только
+            // оценка сверху и отсекать по нему безопасно
+            if (node.maxGap < minGap) {
+                offer(node.minStartSecond, node.minStartNano);
+                cover(node.maxEndSecond, node.maxEndNano);
+                return;
+            }
+            visit(node.left);
+            if (slots.size() >= limit) {
+                return;
+            }
+            offer(node.startSecond, node.startNano);
+            cover(node.endSecond, node.endNano);
+            visit(node.right);
+        }
+
+        // Окно (covered, next) без обеих границ; bounded == false — без конца
+        void found(long afterSecond, int afterNano, long beforeSecond, int beforeNano, boolean bounded) {
+            slots.add(new TimeSlot(shift(afterSecond, afterNano, 1),
+                    bounded ? shift(beforeSecond, beforeNano, -1) : null));
+        }
+
+        private void offer(long nextSecond, int nextNano) {
+            if (slots.size() < limit && fits(nextSecond, nextNano)) {
+                found(coveredSecond, coveredNano, nextSecond, nextNano, true);
+            }
+        }
+
+        private boolean fits(long nextSecond, int nextNano) {
+            long gap = gap(coveredSecond, coveredNano, nextSecond, nextNano);
+            if (gap != Long.MAX_VALUE || minGap != Long.MAX_VALUE) {
+                return gap >= minGap;
+            }
+            return Duration.ofSeconds(nextSecond - coveredSecond, nextNano - coveredNano).minusNanos(2)
+                    .compareTo(duration) >= 0;
+        }
+
+        private void cover(long endSecond, int endNano) {
+            if (compare(endSecond, endNano, coveredSecond, coveredNano) > 0) {
+                coveredSecond = endSecond;
+                coveredNano = endNano;
+            }
+        }
+
+        // covered в начале может лежать на наносекунду раньше LocalDateTime.MIN
+        private static LocalDateTime shift(long second, int nano, int nanos) {
+            nano += nanos;
+            if (nano < 0) {
+                second--;
+                nano += NANOS_PER_SECOND;
+            } else if (nano >= NANOS_PER_SECOND) {
+                second++;
+                nano -= NANOS_PER_SECOND;
+            }
+            return LocalDateTime.ofEpochSecond(second, nano, ZoneOffset.UTC);
+        }
+
+        private static long gapFor(Duration duration) {
+            try {
+                return Math.addExact(duration.toNanos(), 2);
+            } catch (ArithmeticException e) {
+                return Long.MAX_VALUE;
+            }
+        }
+    }
+
+    private static boolean overlaps(Node node, long startSecond, int startNano, long endSecond, int endNano,
+                                    IntPredicate excluded) {
+        if (node == null || compare(node.maxEndSecond, node.maxEndNano, startSecond, startNano) < 0) {
+            return false;
+        }
+        if (overlaps(node.left, startSecond, startNano, endSecond, endNano, excluded)) {
+            return true;
+        }
+        if (compare(node.startSecond, node.startNano, endSecond, endNano) > 0) {
+            return false;
+        }
+        if (compare(node.endSecond, node.endNano, startSecond, startNano) >= 0 && !excluded.test(node.id)) {
+            return true;
+        }
+        return overlaps(node.right, startSecond, startNano, endSecond, endNano, excluded);
+    }
+
+    private static void forEachActive(Node node, long second, int nano, IntConsumer action) {
+        if (node == null || compare(node.maxEndSecond, node.maxEndNano, second, nano) <= 0) {
+            return;
+        }
+        forEachActive(node.left, second, nano, action);
+        if (compare(node.startSecond, node.startNano, second, nano) > 0) {
+            return;
+        }
+        if (compare(node.endSecond, node.endNano, second, nano) > 0) {
+            action.accept(node.id);
+        }
+        forEachActive(node.right, second, nano, action);
+    }
+
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    private static boolean less(Node a, Node b) {
+        int byStart = compare(a.startSecond, a.startNano, b.startSecond, b.startNano);
+        return byStart < 0 || (byStart == 0 && a.id < b.id);
+    }
+
+    private static Node insert(Node node, Node x) {
+        if (node == null) {
+            return x;
+        }
+        if (less(x, node)) {
+            node.left = insert(node.left, x);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, x);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node delete(Node node, Node x) {
+        if (node == null) {
+            return null;
+        }
+        if (node == x) {
+            return merge(node.left, node.right);
+        }
+        if (less(x, node)) {
+            node.left = delete(node.left, x);
+        } else {
+            node.right = delete(node.right, x);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        update(node);
+        left.right = node;
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        update(node);
+        right.left = node;
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        long maxEndSecond = node.endSecond;
+        int maxEndNano = node.endNano;
+        long maxGap = Long.MIN_VALUE;
+        node.minStartSecond = node.startSecond;
+        node.minStartNano = node.startNano;
+        Node left = node.left;
+        if (left != null) {
+            node.minStartSecond = left.minStartSecond;
+            node.minStartNano = left.minStartNano;
+            maxGap = Math.max(left.maxGap, gap(left.maxEndSecond, left.maxEndNano, node.startSecond, node.startNano));
+            if (compare(left.maxEndSecond, left.maxEndNano, maxEndSecond, maxEndNano) > 0) {
+                maxEndSecond = left.maxEndSecond;
+                maxEndNano = left.maxEndNano;
+            }
+        }
+        Node right = node.right;
+        if (right != null) {
+            maxGap = Math.max(maxGap, Math.max(right.maxGap,
+                    gap(maxEndSecond, maxEndNano, right.minStartSecond, right.minStartNano)));
+            if (compare(right.maxEndSecond, right.maxEndNano, maxEndSecond, maxEndNano) > 0) {
+                maxEndSecond = right.maxEndSecond;
+                maxEndNano = right.maxEndNano;
+            }
+        }
+        node.maxEndSecond = maxEndSecond;
+        node.maxEndNano = maxEndNano;
+        node.maxGap = maxGap;
+    }
+}
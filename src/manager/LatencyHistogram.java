@@ -0,0 +1,96 @@
+package manager;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Лог-линейная гистограмма наносекунд: степень двойки делится на 8 корзин,
+// так что ошибка перцентиля не больше 12.5%. Корзины полосатые по потокам,
+// полосы создаются лениво — запись не делит кэш-линии между ядрами.
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final int STRIPES = Math.min(16,
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1));
+    private static final int STRIPE_SHIFT = Integer.numberOfLeadingZeros(Math.max(1, STRIPES - 1));
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        stripe().incrementAndGet(bucket(nanos));
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    MetricsSnapshot.LatencyStats snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < STRIPES; i++) {
+            AtomicLongArray stripe = stripes.get(i);
+            if (stripe != null) {
+                for (int b = 0; b < BUCKETS; b++) {
+                    counts[b] += stripe.get(b);
+                }
+            }
+        }
+        long recorded = 0;
+        for (long c : counts) {
+            recorded += c;
+        }
+        return new MetricsSnapshot.LatencyStats(recorded, total.sum(), max.get(),
+                percentile(counts, recorded, 0.5),
+                percentile(counts, recorded, 0.99),
+                percentile(counts, recorded, 0.999));
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS)
+                + (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    // Верхняя граница корзины: перцентиль не занижается
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket >> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) * width;
+        return lower + width - 1;
+    }
+
+    private static long percentile(long[] counts, long recorded, double quantile) {
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * recorded));
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return upperBound(b);
+            }
+        }
+        return upperBound(counts.length - 1);
+    }
+
+    private AtomicLongArray stripe() {
+        int index = STRIPES == 1 ? 0 : (int) (Thread.currentThread().getId() * 0x9E3779B9) >>> STRIPE_SHIFT;
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new AtomicLongArray(BUCKETS));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+}
@@ -1,11 +1,26 @@
 package manager;
 
 public class Managers {
+    public static final int DEFAULT_HISTORY_CAPACITY = 10_000;
+
     public static TaskManager getDefault() {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    // Обёртка с метриками; для FileBackedTaskManager учитываются и записи на диск
+    public static InstrumentedTaskManager getInstrumented(TaskManager manager) {
+        return new InstrumentedTaskManager(manager);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    public static HistoryManager getBoundedHistory(int capacity) {
+        return new ConcurrentHistoryManager(capacity);
+    }
 }
@@ -0,0 +1,105 @@
+package manager;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Неизменяемый срез метрик InstrumentedTaskManager на момент вызова getMetrics
+public class MetricsSnapshot {
+    public static class LatencyStats {
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+
+        LatencyStats(long count, long totalNanos, long maxNanos, long p50Nanos, long p99Nanos, long p999Nanos) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getP999Nanos() {
+            return p999Nanos;
+        }
+
+        @Override
+        public String toString() {
+            return "LatencyStats{count=" + count +
+                    ", p50=" + p50Nanos +
+                    ", p99=" + p99Nanos +
+                    ", p999=" + p999Nanos +
+                    ", max=" + maxNanos + "}";
+        }
+    }
+
+    private final Map<InstrumentedTaskManager.Operation, LatencyStats> operations;
+    private final LatencyStats saves;
+    private final long savedBytes;
+    private final int historySize;
+
+    MetricsSnapshot(EnumMap<InstrumentedTaskManager.Operation, LatencyStats> operations,
+                    LatencyStats saves, long savedBytes, int historySize) {
+        this.operations = Collections.unmodifiableMap(operations);
+        this.saves = saves;
+        this.savedBytes = savedBytes;
+        this.historySize = historySize;
+    }
+
+    public Map<InstrumentedTaskManager.Operation, LatencyStats> getOperations() {
+        return operations;
+    }
+
+    public LatencyStats getOperation(InstrumentedTaskManager.Operation operation) {
+        return operations.get(operation);
+    }
+
+    // Записи на диск: снапшоты и блоки журнала FileBackedTaskManager
+    public LatencyStats getSaves() {
+        return saves;
+    }
+
+    public long getSavedBytes() {
+        return savedBytes;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{operations=" + operations +
+                ", saves=" + saves +
+                ", savedBytes=" + savedBytes +
+                ", historySize=" + historySize + "}";
+    }
+}
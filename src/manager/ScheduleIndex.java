@@ -0,0 +1,113 @@
+package manager;
+
+import model.Task;
+import util.IntHashMap;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+// Расписание, упорядоченное по (start, id): задачи с одинаковым началом не схлопываются.
+// Ключ запоминается при добавлении, поэтому удаление находит запись, даже если
+// объект задачи успели перенести по времени до вызова update*.
+class ScheduleIndex {
+    private static final class Slot implements Comparable<Slot> {
+        final long startSecond;
+        final int startNano;
+        final int id;
+        final Task task;
+
+        Slot(long startSecond, int startNano, int id, Task task) {
+            this.startSecond = startSecond;
+            this.startNano = startNano;
+            this.id = id;
+            this.task = task;
+        }
+
+        Slot(LocalDateTime start, int id) {
+            this(start.toEpochSecond(ZoneOffset.UTC), start.getNano(), id, null);
+        }
+
+        @Override
+        public int compareTo(Slot other) {
+            int byStart = IntervalIndex.compare(startSecond, startNano, other.startSecond, other.startNano);
+            return byStart != 0 ? byStart : Integer.compare(id, other.id);
+        }
+    }
+
+    private final NavigableSet<Slot> order = new TreeSet<>();
+    private final IntHashMap<Slot> slots = new IntHashMap<>();
+
+    void add(Task task) {
+        remove(task.getId());
+        Slot slot = new Slot(task.getStartSecond(), task.getStartNano(), task.getId(), task);
+        slots.put(task.getId(), slot);
+        order.add(slot);
+    }
+
+    Task remove(int id) {
+        Slot slot = slots.remove(id);
+        if (slot == null) {
+            return null;
+        }
+        order.remove(slot);
+        return slot.task;
+    }
+
+    Task get(int id) {
+        Slot slot = slots.get(id);
+        return slot == null ? null : slot.task;
+    }
+
+    // Начало, с которым задача была добавлена; null — её нет в расписании
+    LocalDateTime startOf(int id) {
+        Slot slot = slots.get(id);
+        return slot == null ? null : LocalDateTime.ofEpochSecond(slot.startSecond, slot.startNano, ZoneOffset.UTC);
+    }
+
+    boolean contains(int id) {
+        return slots.containsKey(id);
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    List<Task> toList() {
+        List<Task> result = new ArrayList<>(order.size());
+        for (Slot slot : order) {
+            result.add(slot.task);
+        }
+        return result;
+    }
+
+    // Курсор (afterStart, afterId) — ключ, а не запись: задачи под ним может уже не быть,
+    // выдача идёт со следующего за ключом места. afterStart == null — с начала
+    List<Task> page(LocalDateTime afterStart, int afterId, int limit) {
+        Iterator<Slot> iterator = afterStart == null
+                ? order.iterator()
+                : order.tailSet(new Slot(afterStart, afterId), false).iterator();
+        return collect(iterator, limit);
+    }
+
+    List<Task> startingBetween(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return new ArrayList<>();
+        }
+        Slot fromSlot = new Slot(from, Integer.MIN_VALUE);
+        Slot toSlot = new Slot(to, Integer.MIN_VALUE);
+        return collect(order.subSet(fromSlot, true, toSlot, false).iterator(), Integer.MAX_VALUE);
+    }
+
+    private static List<Task> collect(Iterator<Slot> iterator, int limit) {
+        List<Task> result = new ArrayList<>();
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next().task);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,71 @@
+package manager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Задание для TaskManager.autoSchedule: какие задачи и подзадачи без startTime
+// разместить, начиная с from. Сначала размещаются задачи с большим priority,
+// при равном — с более ранним дедлайном. Начала кратны granularity от эпохи.
+public class SchedulingRequest {
+    static final class Item {
+        final int id;
+        final int priority;
+        final LocalDateTime earliest;
+        final LocalDateTime deadline;
+
+        Item(int id, int priority, LocalDateTime earliest, LocalDateTime deadline) {
+            this.id = id;
+            this.priority = priority;
+            this.earliest = earliest;
+            this.deadline = deadline;
+        }
+    }
+
+    private final LocalDateTime from;
+    private final List<Item> items = new ArrayList<>();
+    private Duration granularity = Duration.ofMinutes(1);
+
+    public SchedulingRequest(LocalDateTime from) {
+        if (from == null) {
+            throw new IllegalArgumentException("Scheduling start is null");
+        }
+        this.from = from;
+    }
+
+    public void add(int id, int priority) {
+        add(id, priority, null, null);
+    }
+
+    // earliest — не начинать раньше, deadline — закончить не позже; null — без ограничения
+    public void add(int id, int priority, LocalDateTime earliest, LocalDateTime deadline) {
+        if (earliest != null && deadline != null && deadline.isBefore(earliest)) {
+            throw new IllegalArgumentException("Deadline is before earliest start for task " + id);
+        }
+        items.add(new Item(id, priority, earliest, deadline));
+    }
+
+    public void setGranularity(Duration granularity) {
+        if (granularity == null || granularity.isNegative() || granularity.isZero()) {
+            throw new IllegalArgumentException("Invalid scheduling granularity: " + granularity);
+        }
+        this.granularity = granularity;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public Duration getGranularity() {
+        return granularity;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    List<Item> items() {
+        return items;
+    }
+}
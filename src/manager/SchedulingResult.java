@@ -0,0 +1,32 @@
+package manager;
+
+import model.Task;
+
+import java.util.Collections;
+import java.util.List;
+
+// Итог autoSchedule: размещённые задачи с новыми startTime (уже применены к менеджеру)
+// и id задач, для которых не нашлось окна до дедлайна
+public class SchedulingResult {
+    private final List<Task> scheduled;
+    private final List<Integer> unscheduledIds;
+
+    SchedulingResult(List<Task> scheduled, List<Integer> unscheduledIds) {
+        this.scheduled = Collections.unmodifiableList(scheduled);
+        this.unscheduledIds = Collections.unmodifiableList(unscheduledIds);
+    }
+
+    public List<Task> getScheduled() {
+        return scheduled;
+    }
+
+    public List<Integer> getUnscheduledIds() {
+        return unscheduledIds;
+    }
+
+    @Override
+    public String toString() {
+        return "SchedulingResult{scheduled=" + scheduled.size() +
+                ", unscheduledIds=" + unscheduledIds + "}";
+    }
+}
@@ -0,0 +1,59 @@
+package manager;
+
+import model.Task;
+import model.TaskStatus;
+import util.IntMap;
+
+import java.util.List;
+
+// Вторичный индекс по статусу: на каждый TaskStatus своя карта id -> задача.
+// Статусов мало, поэтому прежнюю корзину задачи ищем перебором, без отдельной карты.
+class StatusIndex<T extends Task> {
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final IntMap<T>[] buckets;
+
+    StatusIndex(IntMap<T>[] buckets) {
+        this.buckets = buckets;
+    }
+
+    void put(T task) {
+        remove(task.getId());
+        if (task.getStatus() != null) {
+            buckets[task.getStatus().ordinal()].put(task.getId(), task);
+        }
+    }
+
+    void remove(int id) {
+        for (IntMap<T> bucket : buckets) {
+            if (bucket.remove(id) != null) {
+                return;
+            }
+        }
+    }
+
+    // Статус, под которым задача записана в индекс, даже если объект уже изменили
+    // на месте; null — задачи в индексе нет
+    TaskStatus statusOf(int id) {
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i].containsKey(id)) {
+                return STATUSES[i];
+            }
+        }
+        return null;
+    }
+
+    void clear() {
+        for (IntMap<T> bucket : buckets) {
+            bucket.clear();
+        }
+    }
+
+    List<T> get(TaskStatus status) {
+        return buckets[status.ordinal()].values();
+    }
+
+    int count(TaskStatus status) {
+        return buckets[status.ordinal()].size();
+    }
+}
@@ -0,0 +1,91 @@
+package manager;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Набор изменений для TaskManager.applyBatch. Операции применяются по порядку,
+// пересечения проверяются один раз для итогового состояния всего набора.
+// id новых сущностей выдаются при применении, поэтому подзадачу нового эпика
+// нужно добавлять следующим набором.
+public class TaskBatch {
+    enum Kind {
+        ADD,
+        UPDATE,
+        REMOVE
+    }
+
+    static final class Operation {
+        final Kind kind;
+        final TaskType type;
+        final Task task;
+        final int id;
+
+        Operation(Kind kind, TaskType type, Task task, int id) {
+            this.kind = kind;
+            this.type = type;
+            this.task = task;
+            this.id = id;
+        }
+    }
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    public void addTask(Task task) {
+        add(Kind.ADD, TaskType.TASK, task);
+    }
+
+    public void addEpic(Epic epic) {
+        add(Kind.ADD, TaskType.EPIC, epic);
+    }
+
+    public void addSubTask(SubTask subTask) {
+        add(Kind.ADD, TaskType.SUBTASK, subTask);
+    }
+
+    public void updateTask(Task task) {
+        add(Kind.UPDATE, TaskType.TASK, task);
+    }
+
+    public void updateEpic(Epic epic) {
+        add(Kind.UPDATE, TaskType.EPIC, epic);
+    }
+
+    public void updateSubTask(SubTask subTask) {
+        add(Kind.UPDATE, TaskType.SUBTASK, subTask);
+    }
+
+    public void removeTask(int id) {
+        operations.add(new Operation(Kind.REMOVE, TaskType.TASK, null, id));
+    }
+
+    public void removeEpic(int id) {
+        operations.add(new Operation(Kind.REMOVE, TaskType.EPIC, null, id));
+    }
+
+    public void removeSubTask(int id) {
+        operations.add(new Operation(Kind.REMOVE, TaskType.SUBTASK, null, id));
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    List<Operation> operations() {
+        return operations;
+    }
+
+    private void add(Kind kind, TaskType type, Task task) {
+        if (task != null) {
+            operations.add(new Operation(kind, type, task, task.getId()));
+        }
+    }
+}
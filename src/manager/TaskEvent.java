@@ -0,0 +1,101 @@
+package manager;
+
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+import java.time.LocalDateTime;
+
+// Событие изменения менеджера. sequence растёт строго монотонно, поэтому пропуск
+// номера означает, что подписчик не успевал и событие было отброшено.
+// Для CREATED старые значения null, для REMOVED — новые.
+public class TaskEvent {
+    public enum Kind {
+        CREATED,
+        UPDATED,
+        REMOVED,
+        EPIC_RECOMPUTED
+    }
+
+    private final long sequence;
+    private final Kind kind;
+    private final TaskType type;
+    private final Task task;
+    private final TaskStatus oldStatus;
+    private final TaskStatus newStatus;
+    private final LocalDateTime oldStartTime;
+    private final LocalDateTime newStartTime;
+    private final LocalDateTime oldEndTime;
+    private final LocalDateTime newEndTime;
+
+    TaskEvent(long sequence, Kind kind, TaskType type, Task task,
+              TaskStatus oldStatus, TaskStatus newStatus,
+              LocalDateTime oldStartTime, LocalDateTime newStartTime,
+              LocalDateTime oldEndTime, LocalDateTime newEndTime) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.type = type;
+        this.task = task;
+        this.oldStatus = oldStatus;
+        this.newStatus = newStatus;
+        this.oldStartTime = oldStartTime;
+        this.newStartTime = newStartTime;
+        this.oldEndTime = oldEndTime;
+        this.newEndTime = newEndTime;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public TaskType getType() {
+        return type;
+    }
+
+    public int getId() {
+        return task.getId();
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public TaskStatus getOldStatus() {
+        return oldStatus;
+    }
+
+    public TaskStatus getNewStatus() {
+        return newStatus;
+    }
+
+    public LocalDateTime getOldStartTime() {
+        return oldStartTime;
+    }
+
+    public LocalDateTime getNewStartTime() {
+        return newStartTime;
+    }
+
+    public LocalDateTime getOldEndTime() {
+        return oldEndTime;
+    }
+
+    public LocalDateTime getNewEndTime() {
+        return newEndTime;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskEvent{sequence=" + sequence +
+                ", kind=" + kind +
+                ", type=" + type +
+                ", id=" + task.getId() +
+                ", status=" + oldStatus + "->" + newStatus +
+                ", startTime=" + oldStartTime + "->" + newStartTime +
+                ", endTime=" + oldEndTime + "->" + newEndTime + "}";
+    }
+}
@@ -0,0 +1,79 @@
+package manager;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Асинхронная раздача событий через SubmissionPublisher с ограниченным буфером
+// на подписчика. Писатель никогда не ждёт: если буфер медленного подписчика полон,
+// событие для него отбрасывается и учитывается в getDroppedCount.
+// publish вызывается только под сериализацией писателей менеджера.
+class TaskEventPublisher implements Flow.Publisher<TaskEvent> {
+    private final SubmissionPublisher<TaskEvent> publisher;
+    private final AtomicLong dropped = new AtomicLong();
+    private long sequence;
+
+    TaskEventPublisher() {
+        this(ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    TaskEventPublisher(Executor executor, int bufferSize) {
+        this.publisher = new SubmissionPublisher<>(executor, bufferSize);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super TaskEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    // Без подписчиков события даже не создаются
+    boolean isActive() {
+        return publisher.hasSubscribers();
+    }
+
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    void created(Task task) {
+        publish(TaskEvent.Kind.CREATED, task, null, task.getStatus(), null, task.getStartTime(), null, task.getEndTime());
+    }
+
+    // Прежние значения передаются отдельно: обычно задачу меняют на месте и
+    // передают в update* тот же объект, так что прочитать их из него уже нельзя
+    void updated(Task task, TaskStatus oldStatus, LocalDateTime oldStartTime, LocalDateTime oldEndTime) {
+        publish(TaskEvent.Kind.UPDATED, task, oldStatus, task.getStatus(),
+                oldStartTime, task.getStartTime(), oldEndTime, task.getEndTime());
+    }
+
+    void removed(Task task) {
+        publish(TaskEvent.Kind.REMOVED, task, task.getStatus(), null, task.getStartTime(), null, task.getEndTime(), null);
+    }
+
+    void epicRecomputed(Epic epic, TaskStatus oldStatus, LocalDateTime oldStartTime, LocalDateTime oldEndTime) {
+        publish(TaskEvent.Kind.EPIC_RECOMPUTED, epic, oldStatus, epic.getStatus(),
+                oldStartTime, epic.getStartTime(), oldEndTime, epic.getEndTime());
+    }
+
+    private void publish(TaskEvent.Kind kind, Task task, TaskStatus oldStatus, TaskStatus newStatus,
+                         LocalDateTime oldStartTime, LocalDateTime newStartTime,
+                         LocalDateTime oldEndTime, LocalDateTime newEndTime) {
+        TaskType type = task instanceof SubTask ? TaskType.SUBTASK
+                : task instanceof Epic ? TaskType.EPIC : TaskType.TASK;
+        TaskEvent event = new TaskEvent(++sequence, kind, type, task,
+                oldStatus, newStatus, oldStartTime, newStartTime, oldEndTime, newEndTime);
+        publisher.offer(event, (subscriber, item) -> {
+            dropped.incrementAndGet();
+            return false;
+        });
+    }
+}
@@ -3,8 +3,14 @@ package manager;
 import model.Epic;
 import model.SubTask;
 import model.Task;
+import model.TaskStatus;
+import model.TaskType;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
 
 
 public interface TaskManager {
@@ -51,4 +57,67 @@ public interface TaskManager {
     List<Task> getPrioritizedTasks();
 
     boolean isTasksOverlap(Task var1, Task var2);
+
+    // Неизменяемые представления для частого опроса: пока данные не менялись,
+    // повторный вызов возвращает тот же объект и ничего не копирует.
+    List<Task> getTasksView();
+
+    List<Epic> getEpicsView();
+
+    List<SubTask> getSubTasksView();
+
+    List<Task> getPrioritizedView();
+
+    List<Task> getHistoryView();
+
+    // Постраничная выдача: afterId — id последнего элемента прошлой страницы, 0 — с начала.
+    // Сущности идут по возрастанию id, расписание — в порядке getPrioritizedTasks.
+    List<Task> getTasksPage(int afterId, int limit);
+
+    List<Epic> getEpicsPage(int afterId, int limit);
+
+    List<SubTask> getSubTasksPage(int afterId, int limit);
+
+    // Курсор расписания — начало и id последней задачи прошлой страницы, afterStart == null —
+    // с начала. Если эту задачу уже удалили или перенесли, выдача продолжается со следующей
+    // за курсором позиции.
+    List<Task> getPrioritizedPage(LocalDateTime afterStart, int afterId, int limit);
+
+    // Задачи расписания с началом в [from, to), по времени начала
+    List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to);
+
+    // Задачи, которые идут в момент time: start <= time < end
+    List<Task> getTasksActiveAt(LocalDateTime time);
+
+    // Ближайшее свободное окно расписания длиной не меньше duration, начиная с from.
+    // Окно не касается занятых отрезков, последнее окно не ограничено справа.
+    // null, если окна нет: задача занимает время вплоть до LocalDateTime.MAX
+    TimeSlot findFreeSlot(LocalDateTime from, Duration duration);
+
+    // Первые limit таких окон по возрастанию времени
+    List<TimeSlot> findFreeSlots(LocalDateTime from, Duration duration, int limit);
+
+    // Выборка и подсчёт по статусу идут по вторичному индексу, без обхода всех задач
+    List<Task> getTasksByStatus(TaskType type, TaskStatus status);
+
+    int countTasksByStatus(TaskType type, TaskStatus status);
+
+    Map<TaskStatus, Integer> countTasksByStatus(TaskType type);
+
+    // Полнотекстовый поиск по name и description задач, эпиков и подзадач.
+    // Слова запроса совпадают по префиксу, без учёта регистра; id — от более релевантных
+    List<Integer> searchTasks(String query, int limit);
+
+    // Применяет набор изменений атомарно: пересечения проверяются один раз для всего
+    // набора, при конфликте не меняется ничего
+    void applyBatch(TaskBatch batch);
+
+    // Размещает задачи и подзадачи без startTime в свободное время вокруг расписания
+    // и применяет результат одним applyBatch. Задачи, которым не хватило места до
+    // дедлайна, остаются без времени и перечислены в результате
+    SchedulingResult autoSchedule(SchedulingRequest request);
+
+    // Поток событий об изменениях с возрастающими номерами. Доставка асинхронная,
+    // буфер подписчика ограничен: при переполнении события отбрасываются, писатели не ждут
+    Flow.Publisher<TaskEvent> getEvents();
 }
@@ -0,0 +1,622 @@
+package manager;
+
+import model.Task;
+import util.IntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Инвертированный индекс по name и description. Токены — последовательности букв и цифр
+// в нижнем регистре. Словарь отсортирован, так что префиксный поиск — это subMap.
+// Списки вхождений хранятся блоками по BLOCK_SIZE записей, внутри блока
+// id и частоты сжаты разностями в varint: изменение переписывает только один блок.
+class TextIndex {
+    private static final int BLOCK_SIZE = 128;
+    private static final double PREFIX_WEIGHT = 0.5;
+    // Запас при отсечении: суммы в другом порядке могут разойтись в последних битах
+    private static final double PRUNE_SLACK = 1e-9;
+    private static final int NO_MORE = Integer.MAX_VALUE;
+    // Массивы поиска переиспользуются между запросами; поиск идёт под общей блокировкой
+    // чтения, поэтому у каждого потока свои
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final NavigableMap<String, PostingList> dictionary = new TreeMap<>();
+    private final IntHashMap<PostingList[]> documents = new IntHashMap<>();
+
+    void put(Task task) {
+        remove(task.getId());
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        tokenize(task.getName(), frequencies);
+        tokenize(task.getDescription(), frequencies);
+        if (frequencies.isEmpty()) {
+            return;
+        }
+        PostingList[] postings = new PostingList[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            PostingList list = dictionary.computeIfAbsent(entry.getKey(), PostingList::new);
+            list.add(task.getId(), entry.getValue());
+            postings[i++] = list;
+        }
+        documents.put(task.getId(), postings);
+    }
+
+    void remove(int id) {
+        PostingList[] postings = documents.remove(id);
+        if (postings == null) {
+            return;
+        }
+        for (PostingList list : postings) {
+            list.remove(id);
+            if (list.size == 0) {
+                dictionary.remove(list.term);
+            }
+        }
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    // Каждое слово запроса ищется как префикс; точное совпадение весит больше префиксного.
+    // Вклад терма — tf * ln(1 + N / df), результат — id по убыванию веса, при равенстве по id.
+    // Документы обходятся по возрастанию id сразу по всем спискам (MaxScore): как только
+    // набрано limit результатов, списки, сумма верхних оценок которых не дотягивает до
+    // худшего из них, перестают порождать кандидатов, а блоки, где оценка по максимальной
+    // частоте блока не проходит порог, не распаковываются.
+    List<Integer> search(String query, int limit) {
+        Map<String, Integer> tokens = new LinkedHashMap<>();
+        tokenize(query, tokens);
+        List<Cursor> found = new ArrayList<>();
+        for (String token : tokens.keySet()) {
+            for (PostingList list : dictionary.subMap(token, true, token + Character.MAX_VALUE, true).values()) {
+                double weight = Math.log(1 + (double) documents.size() / list.size)
+                        * (list.term.length() == token.length() ? 1.0 : PREFIX_WEIGHT);
+                found.add(new Cursor(list, weight));
+            }
+        }
+        if (found.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Cursor[] cursors = found.toArray(new Cursor[0]);
+        Arrays.sort(cursors, Comparator.comparingDouble(cursor -> cursor.bound));
+        return new Search(cursors, Math.min(limit, documents.size()), SCRATCH.get()).run();
+    }
+
+    static void tokenize(String text, Map<String, Integer> frequencies) {
+        if (text == null) {
+            return;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); ) {
+            int codePoint = i < lower.length() ? lower.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                frequencies.merge(lower.substring(start, i), 1, Integer::sum);
+                start = -1;
+            }
+            i += i < lower.length() ? Character.charCount(codePoint) : 1;
+        }
+    }
+
+    private static final class Scratch {
+        double[] prefix = new double[0];
+        double[] contributions = new double[0];
+        int[] matched = new int[0];
+        int[] essential = new int[0];
+        int[] topIds = new int[0];
+        double[] topScores = new double[0];
+
+        void ensure(int cursors, int limit) {
+            if (prefix.length < cursors) {
+                prefix = new double[cursors];
+                contributions = new double[cursors];
+                matched = new int[cursors];
+                essential = new int[cursors];
+            }
+            if (topIds.length < limit) {
+                topIds = new int[limit];
+                topScores = new double[limit];
+            }
+        }
+    }
+
+    // Один проход MaxScore. Курсоры отсортированы по верхней оценке; cursors[0..split) —
+    // необязательные: документ, который есть только в них, не наберёт больше порога.
+    // Обязательные курсоры лежат в куче по текущему id и порождают кандидатов.
+    private static final class Search {
+        private final Cursor[] cursors;
+        private final int limit;
+        private final double[] prefix;
+        private final double[] contributions;
+        private final int[] matched;
+        private final int[] essential;
+        private final int[] topIds;
+        private final double[] topScores;
+        private int essentialSize;
+        private int split;
+        private int topSize;
+        private double threshold;
+
+        Search(Cursor[] cursors, int limit, Scratch scratch) {
+            scratch.ensure(cursors.length, limit);
+            this.cursors = cursors;
+            this.limit = limit;
+            this.prefix = scratch.prefix;
+            this.contributions = scratch.contributions;
+            this.matched = scratch.matched;
+            this.essential = scratch.essential;
+            this.topIds = scratch.topIds;
+            this.topScores = scratch.topScores;
+            double sum = 0;
+            for (int i = 0; i < cursors.length; i++) {
+                sum += cursors[i].bound;
+                prefix[i] = sum;
+            }
+        }
+
+        List<Integer> run() {
+            if (limit == 0) {
+                return new ArrayList<>();
+            }
+            buildEssential();
+            while (essentialSize > 0) {
+                int id = cursors[essential[0]].doc;
+                int count = 0;
+                double partial = 0;
+                while (essentialSize > 0 && cursors[essential[0]].doc == id) {
+                    int index = essential[0];
+                    Cursor cursor = cursors[index];
+                    contributions[index] = cursor.tf * cursor.weight;
+                    partial += contributions[index];
+                    matched[count++] = index;
+                    cursor.next();
+                    if (cursor.doc == NO_MORE) {
+                        essential[0] = essential[--essentialSize];
+                    }
+                    siftDown(0);
+                }
+                boolean candidate = true;
+                for (int i = split - 1; i >= 0; i--) {
+                    if (prunes(partial + prefix[i])) {
+                        candidate = false;
+                        break;
+                    }
+                    Cursor cursor = cursors[i];
+                    double blockBound = cursor.blockBound(id);
+                    if (blockBound == 0) {
+                        continue;
+                    }
+                    if (prunes(partial + blockBound + (i > 0 ? prefix[i - 1] : 0))) {
+                        candidate = false;
+                        break;
+                    }
+                    if (cursor.advance(id)) {
+                        contributions[i] = cursor.tf * cursor.weight;
+                        partial += contributions[i];
+                        matched[count++] = i;
+                    }
+                }
+                if (candidate) {
+                    offer(id, score(count));
+                }
+            }
+            return drain();
+        }
+
+        private boolean prunes(double bound) {
+            return topSize == limit && bound < threshold * (1 - PRUNE_SLACK);
+        }
+
+        // Сумма по возрастанию вкладов: одинаковые наборы вкладов дают одинаковый double,
+        // в каком бы порядке ни попались курсоры
+        private double score(int count) {
+            for (int i = 1; i < count; i++) {
+                int index = matched[i];
+                int j = i - 1;
+                while (j >= 0 && contributions[matched[j]] > contributions[index]) {
+                    matched[j + 1] = matched[j];
+                    j--;
+                }
+                matched[j + 1] = index;
+            }
+            double score = 0;
+            for (int i = 0; i < count; i++) {
+                score += contributions[matched[i]];
+            }
+            return score;
+        }
+
+        // id идут по возрастанию, поэтому при равном весе новый кандидат проигрывает
+        private void offer(int id, double score) {
+            if (topSize < limit) {
+                topIds[topSize] = id;
+                topScores[topSize] = score;
+                siftUpTop(topSize++);
+            } else if (score > topScores[0]) {
+                topIds[0] = id;
+                topScores[0] = score;
+                siftDownTop(0, topSize);
+            } else {
+                return;
+            }
+            if (topSize == limit) {
+                threshold = topScores[0];
+                int previous = split;
+                while (split < cursors.length && prefix[split] < threshold * (1 - PRUNE_SLACK)) {
+                    split++;
+                }
+                if (split != previous) {
+                    buildEssential();
+                }
+            }
+        }
+
+        private List<Integer> drain() {
+            Integer[] result = new Integer[topSize];
+            for (int size = topSize; size > 0; size--) {
+                result[size - 1] = topIds[0];
+                topIds[0] = topIds[size - 1];
+                topScores[0] = topScores[size - 1];
+                siftDownTop(0, size - 1);
+            }
+            topSize = 0;
+            return new ArrayList<>(Arrays.asList(result));
+        }
+
+        private void buildEssential() {
+            essentialSize = 0;
+            for (int i = split; i < cursors.length; i++) {
+                if (cursors[i].doc != NO_MORE) {
+                    essential[essentialSize++] = i;
+                }
+            }
+            for (int i = essentialSize / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        private void siftDown(int position) {
+            int index = essential[position];
+            int doc = cursors[index].doc;
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= essentialSize) {
+                    break;
+                }
+                if (child + 1 < essentialSize && cursors[essential[child + 1]].doc < cursors[essential[child]].doc) {
+                    child++;
+                }
+                if (cursors[essential[child]].doc >= doc) {
+                    break;
+                }
+                essential[position] = essential[child];
+                position = child;
+            }
+            essential[position] = index;
+        }
+
+        // Наверху худший из лучших: меньший вес, при равенстве больший id
+        private boolean worse(int a, int b) {
+            return topScores[a] < topScores[b] || topScores[a] == topScores[b] && topIds[a] > topIds[b];
+        }
+
+        private void siftUpTop(int position) {
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (!worse(position, parent)) {
+                    break;
+                }
+                swapTop(position, parent);
+                position = parent;
+            }
+        }
+
+        private void siftDownTop(int position, int size) {
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && worse(child + 1, child)) {
+                    child++;
+                }
+                if (!worse(child, position)) {
+                    break;
+                }
+                swapTop(position, child);
+                position = child;
+            }
+        }
+
+        private void swapTop(int a, int b) {
+            int id = topIds[a];
+            topIds[a] = topIds[b];
+            topIds[b] = id;
+            double score = topScores[a];
+            topScores[a] = topScores[b];
+            topScores[b] = score;
+        }
+    }
+
+    // Курсор по списку вхождений: varint читаются прямо из блока, без распаковки в массивы.
+    // block — блок, до которого дошёл пропуск; loaded — блок, который сейчас читается.
+    private static final class Cursor {
+        final PostingList list;
+        final double weight;
+        // Верхняя оценка вклада: максимальная частота списка * вес
+        final double bound;
+        int doc;
+        int tf;
+        private int block;
+        private int loaded = -1;
+        private byte[] data;
+        private int offset;
+        private int remaining;
+
+        Cursor(PostingList list, double weight) {
+            this.list = list;
+            this.weight = weight;
+            int maxTf = 0;
+            for (Block block : list.blocks) {
+                maxTf = Math.max(maxTf, block.maxTf);
+            }
+            this.bound = maxTf * weight;
+            load(0);
+        }
+
+        void next() {
+            if (remaining == 0) {
+                load(loaded + 1);
+            } else {
+                read();
+            }
+        }
+
+        // Оценка по блоку, где может быть id; 0 — id в списке точно нет
+        double blockBound(int id) {
+            if (loaded == block && doc > id) {
+                return 0;
+            }
+            List<Block> blocks = list.blocks;
+            while (block < blocks.size() && blocks.get(block).last < id) {
+                block++;
+            }
+            if (block == blocks.size()) {
+                doc = NO_MORE;
+                return 0;
+            }
+            Block current = blocks.get(block);
+            return current.first > id ? 0 : current.maxTf * weight;
+        }
+
+        // Сдвигается к id внутри блока, найденного blockBound
+        boolean advance(int id) {
+            if (loaded != block) {
+                load(block);
+            }
+            while (doc < id && remaining > 0) {
+                read();
+            }
+            return doc == id;
+        }
+
+        private void load(int index) {
+            block = index;
+            loaded = index;
+            if (index >= list.blocks.size()) {
+                doc = NO_MORE;
+                return;
+            }
+            Block current = list.blocks.get(index);
+            data = current.data;
+            offset = 0;
+            remaining = current.count;
+            doc = current.first;
+            read();
+        }
+
+        // Первая разность в блоке нулевая: id отсчитываются от first
+        private void read() {
+            doc += readVarint();
+            tf = readVarint();
+            remaining--;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    private static final class Block {
+        int first;
+        int last;
+        int count;
+        // Максимальная частота в блоке — верхняя оценка для пропуска блоков при поиске
+        int maxTf;
+        byte[] data;
+    }
+
+    private static final class PostingList {
+        final String term;
+        final List<Block> blocks = new ArrayList<>();
+        int size;
+
+        PostingList(String term) {
+            this.term = term;
+        }
+
+        void add(int id, int tf) {
+            Block tail = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+            if (tail == null || id > tail.last) {
+                // обычный случай: id выдаются по возрастанию, дописываем в хвост
+                if (tail == null || tail.count == BLOCK_SIZE) {
+                    blocks.add(encode(new int[]{id}, new int[]{tf}, 1));
+                } else {
+                    appendTo(tail, id, tf);
+                }
+                size++;
+                return;
+            }
+            int index = find(id);
+            Block block = blocks.get(index);
+            int[] ids = new int[block.count + 1];
+            int[] tfs = new int[block.count + 1];
+            decode(block, ids, tfs);
+            int position = 0;
+            while (position < block.count && ids[position] < id) {
+                position++;
+            }
+            if (position < block.count && ids[position] == id) {
+                tfs[position] = tf;
+                blocks.set(index, encode(ids, tfs, block.count));
+                return;
+            }
+            System.arraycopy(ids, position, ids, position + 1, block.count - position);
+            System.arraycopy(tfs, position, tfs, position + 1, block.count - position);
+            ids[position] = id;
+            tfs[position] = tf;
+            int count = block.count + 1;
+            if (count > BLOCK_SIZE) {
+                int half = count / 2;
+                blocks.set(index, encode(ids, tfs, half));
+                int[] restIds = new int[count - half];
+                int[] restTfs = new int[count - half];
+                System.arraycopy(ids, half, restIds, 0, restIds.length);
+                System.arraycopy(tfs, half, restTfs, 0, restTfs.length);
+                blocks.add(index + 1, encode(restIds, restTfs, restIds.length));
+            } else {
+                blocks.set(index, encode(ids, tfs, count));
+            }
+            size++;
+        }
+
+        void remove(int id) {
+            if (blocks.isEmpty()) {
+                return;
+            }
+            int index = find(id);
+            Block block = blocks.get(index);
+            if (id < block.first || id > block.last) {
+                return;
+            }
+            int[] ids = new int[block.count];
+            int[] tfs = new int[block.count];
+            decode(block, ids, tfs);
+            int position = 0;
+            while (position < block.count && ids[position] != id) {
+                position++;
+            }
+            if (position == block.count) {
+                return;
+            }
+            System.arraycopy(ids, position + 1, ids, position, block.count - position - 1);
+            System.arraycopy(tfs, position + 1, tfs, position, block.count - position - 1);
+            if (block.count == 1) {
+                blocks.remove(index);
+            } else {
+                blocks.set(index, encode(ids, tfs, block.count - 1));
+            }
+            size--;
+        }
+
+        // Последний блок с first <= id, или первый блок
+        private int find(int id) {
+            int low = 0;
+            int high = blocks.size() - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (blocks.get(mid).first <= id) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        private static void decode(Block block, int[] ids, int[] tfs) {
+            int[] offset = {0};
+            int id = block.first;
+            for (int i = 0; i < block.count; i++) {
+                id += readVarint(block.data, offset);
+                ids[i] = id;
+                tfs[i] = readVarint(block.data, offset);
+            }
+        }
+
+        private static Block encode(int[] ids, int[] tfs, int count) {
+            Block block = new Block();
+            block.first = ids[0];
+            block.data = new byte[count * 2 + 8];
+            int offset = 0;
+            int previous = ids[0];
+            for (int i = 0; i < count; i++) {
+                block.data = ensure(block.data, offset + 10);
+                offset = writeVarint(block.data, offset, ids[i] - previous);
+                offset = writeVarint(block.data, offset, tfs[i]);
+                previous = ids[i];
+                block.maxTf = Math.max(block.maxTf, tfs[i]);
+            }
+            block.data = Arrays.copyOf(block.data, offset);
+            block.last = previous;
+            block.count = count;
+            return block;
+        }
+
+        private static void appendTo(Block block, int id, int tf) {
+            int offset = block.data.length;
+            byte[] data = Arrays.copyOf(block.data, offset + 10);
+            offset = writeVarint(data, offset, id - block.last);
+            offset = writeVarint(data, offset, tf);
+            block.data = Arrays.copyOf(data, offset);
+            block.last = id;
+            block.count++;
+            block.maxTf = Math.max(block.maxTf, tf);
+        }
+
+        private static byte[] ensure(byte[] data, int capacity) {
+            return capacity <= data.length ? data : Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+        }
+
+        private static int readVarint(byte[] data, int[] offset) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset[0]++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        private static int writeVarint(byte[] data, int offset, int value) {
+            while ((value & ~0x7F) != 0) {
+                data[offset++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[offset++] = (byte) value;
+            return offset;
+        }
+    }
+}
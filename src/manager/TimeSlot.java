@@ -0,0 +1,53 @@
+package manager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Свободное окно расписания [start, end]. Отрезки задач замкнуты, поэтому окно
+// не касается соседей: задача с началом start и длительностью не больше
+// getDuration() пройдёт проверку пересечений. end == null — окно без конца.
+public class TimeSlot {
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    TimeSlot(LocalDateTime start, LocalDateTime end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    public boolean isUnbounded() {
+        return end == null;
+    }
+
+    // Для окна без конца — null
+    public Duration getDuration() {
+        return end == null ? null : Duration.between(start, end);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TimeSlot slot = (TimeSlot) o;
+        return start.equals(slot.start) && Objects.equals(end, slot.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return "TimeSlot{start=" + start + ", end=" + end + "}";
+    }
+}
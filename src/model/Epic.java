@@ -2,62 +2,113 @@ package model;
 
 import model.Task;
 
-import java.time.Duration;
+import util.IntList;
+
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 
 public class Epic extends Task {
-    private ArrayList<Integer> subtaskIds = new ArrayList();
-    private LocalDateTime endTime;
+    // id удалённой подзадачи заменяется меткой REMOVED за O(1), а список уплотняется
+    // при чтении или когда меток становится больше, чем живых id. Порядок добавления
+    // сохраняется; место id в списке aggregates хранит вместе с подзадачей.
+    private static final int REMOVED = Integer.MIN_VALUE;
+
+    private IntList subtaskIds = new IntList();
+    private int removedIds;
+    // состояние, с которым подзадача учтена в агрегатах: объект подзадачи могут изменить до update
+    private SubtaskAggregates aggregates = new SubtaskAggregates();
+
     public Epic() {
         super();
+        setFixedEndTime(null);
     }
 
     public Epic(String name, String description) {
         super(name, description);
+        setFixedEndTime(null);
     }
 
-    public ArrayList<Integer> getSubtaskIds() {
+    // Уплотнение при чтении меняет список: читатели под общей блокировкой
+    // (ConcurrentTaskManager) проходят его по очереди
+    public synchronized IntList getSubtaskIds() {
+        compactSubtaskIds();
         return this.subtaskIds;
     }
 
-    public void setSubtaskIds(ArrayList<Integer> subtaskIds) {
-        this.subtaskIds = subtaskIds;
+    public void addSubtask(SubTask subTask) {
+        if (aggregates.contains(subTask.getId())) {
+            updateSubtask(subTask);
+            return;
+        }
+        aggregates.add(subTask, this.subtaskIds.size());
+        this.subtaskIds.add(subTask.getId());
+        refresh();
     }
 
-    public void addSubtaskId(int subtaskId) {
-        this.subtaskIds.add(subtaskId);
+    public void updateSubtask(SubTask subTask) {
+        if (!aggregates.contains(subTask.getId())) {
+            return;
+        }
+        aggregates.update(subTask);
+        refresh();
     }
 
     public void removeSubtaskId(int subtaskId) {
-        this.subtaskIds.remove((Integer) subtaskId);
+        int order = aggregates.remove(subtaskId);
+        if (order >= 0) {
+            this.subtaskIds.set(order, REMOVED);
+            if (++removedIds > aggregates.size()) {
+                compactSubtaskIds();
+            }
+            refresh();
+        }
     }
 
-    public void setEndTime(LocalDateTime endTime) {this.endTime = endTime;}
-
-    @Override
-    public LocalDateTime getEndTime() {return this.endTime;}
+    public void clearSubtasks() {
+        this.subtaskIds.clear();
+        this.removedIds = 0;
+        this.aggregates.clear();
+        refresh();
+    }
 
-    public void calculateEndTime(LocalDateTime subTaskStartTime, Duration subTaskDuration, LocalDateTime subtaskEndTime) {
-        if(getStartTime() == null ||  subTaskStartTime.isBefore(getStartTime())) {
-            setStartTime(subTaskStartTime);
-        }
+    // Статус и время эпика выводятся из подзадач: значения, выставленные
+    // вручную в setStatus/setStartTime, здесь перезаписываются
+    public void recalculate() {
+        refresh();
+    }
 
-        if(getDuration() == null){
-            setDuration(Duration.ZERO);
-        }
+    public void inheritSubtasks(Epic other) {
+        this.subtaskIds = new IntList(other.getSubtaskIds());
+        this.removedIds = 0;
+        this.aggregates = new SubtaskAggregates(other.aggregates);
+        refresh();
+    }
 
-        setDuration(getDuration().plus(subTaskDuration));
+    public void setEndTime(LocalDateTime endTime) {setFixedEndTime(endTime);}
 
-        if(endTime == null || subtaskEndTime.isAfter(endTime)) {
-            endTime = subtaskEndTime;
+    private void refresh() {
+        int total = aggregates.size();
+        if (total == 0 || aggregates.count(TaskStatus.NEW) == total) {
+            setStatus(TaskStatus.NEW);
+        } else if (aggregates.count(TaskStatus.DONE) == total) {
+            setStatus(TaskStatus.DONE);
+        } else {
+            setStatus(TaskStatus.IN_PROGRESS);
         }
+
+        setStartTime(aggregates.earliestStart());
+        setFixedEndTime(aggregates.latestEnd());
+        setDuration(aggregates.totalDuration());
     }
 
-    public void clearTime(){
-        setStartTime(null);
-        setDuration(Duration.ZERO);
-        endTime = null;
+    private void compactSubtaskIds() {
+        if (removedIds == 0) {
+            return;
+        }
+        subtaskIds.removeAll(REMOVED);
+        removedIds = 0;
+        for (int i = 0; i < subtaskIds.size(); i++) {
+            aggregates.setOrder(subtaskIds.get(i), i);
+        }
     }
 
     @Override
@@ -69,7 +120,7 @@ public class Epic extends Task {
                 ", startTime=" + getStartTime() +
                 ", duration=" + getDuration() +
                 ", endTime=" + getEndTime() +
-                ", subtaskIds=" + subtaskIds + "}";
+                ", subtaskIds=" + getSubtaskIds() + "}";
     }
 
 }
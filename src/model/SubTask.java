@@ -1,7 +1,5 @@
 package model;
 
-import java.time.LocalDateTime;
-
 public class SubTask extends Task {
     private int epicId;
 
@@ -22,14 +20,6 @@ public class SubTask extends Task {
         this.epicId = epicId;
     }
 
-    @Override
-    public LocalDateTime getEndTime() {
-        if(getStartTime() == null || getDuration() == null){
-            return null;
-        }
-        return getStartTime().plus(getDuration());
-    }
-
     @Override
     public String toString() {
         return "SubTask{id=" + getId() +
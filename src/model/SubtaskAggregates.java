@@ -0,0 +1,305 @@
+package model;
+
+import util.IntIntHashMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+// Агрегаты эпика по подзадачам без объектов на подзадачу. Состояние, с которым
+// подзадача учтена (объект подзадачи могут изменить до update), лежит примитивами
+// в параллельных массивах, плотно по номеру ячейки; ячейку по id даёт IntIntHashMap.
+// Самое раннее начало и самый поздний конец держат две индексированные кучи над
+// ячейками, поэтому добавление, обновление и удаление стоят O(log n).
+final class SubtaskAggregates {
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final int NONE = -1;
+    private static final int[] EMPTY = new int[0];
+
+    private final IntIntHashMap slots;
+    private int size;
+    private int[] ids = EMPTY;
+    // Место подзадачи в порядке добавления у эпика
+    private int[] orders = EMPTY;
+    // ordinal + 1, 0 — подзадача без статуса
+    private byte[] statuses = new byte[0];
+    private long[] startSeconds = new long[0];
+    private int[] startNanos = EMPTY;
+    private long[] endSeconds = new long[0];
+    private int[] endNanos = EMPTY;
+    private final TimeHeap starts;
+    private final TimeHeap ends;
+    private final int[] statusCounts = new int[STATUSES.length];
+    private long totalSeconds;
+    private long totalNanos;
+
+    SubtaskAggregates() {
+        this.slots = new IntIntHashMap(NONE);
+        this.starts = new TimeHeap(false);
+        this.ends = new TimeHeap(true);
+    }
+
+    SubtaskAggregates(SubtaskAggregates other) {
+        this.slots = new IntIntHashMap(other.slots);
+        this.size = other.size;
+        this.ids = Arrays.copyOf(other.ids, size);
+        this.orders = Arrays.copyOf(other.orders, size);
+        this.statuses = Arrays.copyOf(other.statuses, size);
+        this.startSeconds = Arrays.copyOf(other.startSeconds, size);
+        this.startNanos = Arrays.copyOf(other.startNanos, size);
+        this.endSeconds = Arrays.copyOf(other.endSeconds, size);
+        this.endNanos = Arrays.copyOf(other.endNanos, size);
+        this.starts = new TimeHeap(other.starts, size);
+        this.ends = new TimeHeap(other.ends, size);
+        System.arraycopy(other.statusCounts, 0, this.statusCounts, 0, statusCounts.length);
+        this.totalSeconds = other.totalSeconds;
+        this.totalNanos = other.totalNanos;
+    }
+
+    boolean contains(int id) {
+        return slots.containsKey(id);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(SubTask subTask, int order) {
+        if (size == ids.length) {
+            grow();
+        }
+        int slot = size++;
+        ids[slot] = subTask.getId();
+        orders[slot] = order;
+        slots.put(subTask.getId(), slot);
+        count(slot, subTask);
+    }
+
+    void update(SubTask subTask) {
+        int slot = slots.get(subTask.getId());
+        if (slot != NONE) {
+            uncount(slot);
+            count(slot, subTask);
+        }
+    }
+
+    void setOrder(int id, int order) {
+        orders[slots.get(id)] = order;
+    }
+
+    // Последняя ячейка переезжает на место удалённой, массивы остаются плотными.
+    // Возвращает место подзадачи в порядке добавления или -1, если её нет
+    int remove(int id) {
+        int slot = slots.remove(id);
+        if (slot == NONE) {
+            return NONE;
+        }
+        int order = orders[slot];
+        uncount(slot);
+        int last = --size;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            orders[slot] = orders[last];
+            statuses[slot] = statuses[last];
+            startSeconds[slot] = startSeconds[last];
+            startNanos[slot] = startNanos[last];
+            endSeconds[slot] = endSeconds[last];
+            endNanos[slot] = endNanos[last];
+            starts.move(last, slot);
+            ends.move(last, slot);
+            slots.put(ids[slot], slot);
+        }
+        return order;
+    }
+
+    void clear() {
+        slots.clear();
+        size = 0;
+        starts.clear();
+        ends.clear();
+        Arrays.fill(statusCounts, 0);
+        totalSeconds = 0;
+        totalNanos = 0;
+    }
+
+    int count(TaskStatus status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    LocalDateTime earliestStart() {
+        int slot = starts.top();
+        return slot == NONE ? null : LocalDateTime.ofEpochSecond(startSeconds[slot], startNanos[slot], ZoneOffset.UTC);
+    }
+
+    LocalDateTime latestEnd() {
+        int slot = ends.top();
+        return slot == NONE ? null : LocalDateTime.ofEpochSecond(endSeconds[slot], endNanos[slot], ZoneOffset.UTC);
+    }
+
+    Duration totalDuration() {
+        return Duration.ofSeconds(totalSeconds, totalNanos);
+    }
+
+    // Во времени учитываются подзадачи, у которых есть и начало, и конец
+    private void count(int slot, SubTask subTask) {
+        TaskStatus status = subTask.getStatus();
+        statuses[slot] = (byte) (status == null ? 0 : status.ordinal() + 1);
+        if (status != null) {
+            statusCounts[status.ordinal()]++;
+        }
+        if (subTask.hasStartTime() && subTask.hasEndTime()) {
+            startSeconds[slot] = subTask.getStartSecond();
+            startNanos[slot] = subTask.getStartNano();
+            endSeconds[slot] = subTask.getEndSecond();
+            endNanos[slot] = subTask.getEndNano();
+            totalSeconds += endSeconds[slot] - startSeconds[slot];
+            totalNanos += endNanos[slot] - startNanos[slot];
+            starts.add(slot);
+            ends.add(slot);
+        }
+    }
+
+    private void uncount(int slot) {
+        if (statuses[slot] != 0) {
+            statusCounts[statuses[slot] - 1]--;
+        }
+        if (starts.contains(slot)) {
+            totalSeconds -= endSeconds[slot] - startSeconds[slot];
+            totalNanos -= endNanos[slot] - startNanos[slot];
+            starts.remove(slot);
+            ends.remove(slot);
+        }
+    }
+
+    private void grow() {
+        int capacity = Math.max(4, size + (size >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        orders = Arrays.copyOf(orders, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        startSeconds = Arrays.copyOf(startSeconds, capacity);
+        startNanos = Arrays.copyOf(startNanos, capacity);
+        endSeconds = Arrays.copyOf(endSeconds, capacity);
+        endNanos = Arrays.copyOf(endNanos, capacity);
+        starts.grow(capacity);
+        ends.grow(capacity);
+    }
+
+    private static int compare(long second, int nano, long otherSecond, int otherNano) {
+        int bySecond = Long.compare(second, otherSecond);
+        return bySecond != 0 ? bySecond : Integer.compare(nano, otherNano);
+    }
+
+    // Двоичная куча номеров ячеек; positions[slot] — место ячейки в куче или NONE
+    private final class TimeHeap {
+        // true — по концу, наверху самый поздний; false — по началу, наверху самое раннее
+        private final boolean byEnd;
+        private int[] heap;
+        private int[] positions;
+        private int size;
+
+        TimeHeap(boolean byEnd) {
+            this.byEnd = byEnd;
+            this.heap = EMPTY;
+            this.positions = EMPTY;
+        }
+
+        TimeHeap(TimeHeap other, int capacity) {
+            this.byEnd = other.byEnd;
+            this.heap = Arrays.copyOf(other.heap, capacity);
+            this.positions = Arrays.copyOf(other.positions, capacity);
+            this.size = other.size;
+        }
+
+        boolean contains(int slot) {
+            return positions[slot] != NONE;
+        }
+
+        int top() {
+            return size == 0 ? NONE : heap[0];
+        }
+
+        void add(int slot) {
+            heap[size] = slot;
+            positions[slot] = size;
+            siftUp(size++);
+        }
+
+        void remove(int slot) {
+            int index = positions[slot];
+            positions[slot] = NONE;
+            int last = heap[--size];
+            if (index != size) {
+                heap[index] = last;
+                positions[last] = index;
+                siftDown(index);
+                siftUp(positions[last]);
+            }
+        }
+
+        // Ячейка from переехала в to, время в массивах уже скопировано
+        void move(int from, int to) {
+            int index = positions[from];
+            positions[from] = NONE;
+            positions[to] = index;
+            if (index != NONE) {
+                heap[index] = to;
+            }
+        }
+
+        void clear() {
+            Arrays.fill(positions, NONE);
+            size = 0;
+        }
+
+        void grow(int capacity) {
+            int old = positions.length;
+            heap = Arrays.copyOf(heap, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            Arrays.fill(positions, old, capacity, NONE);
+        }
+
+        private boolean above(int slot, int other) {
+            return byEnd
+                    ? compare(endSeconds[slot], endNanos[slot], endSeconds[other], endNanos[other]) > 0
+                    : compare(startSeconds[slot], startNanos[slot], startSeconds[other], startNanos[other]) < 0;
+        }
+
+        private void siftUp(int index) {
+            int slot = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!above(slot, heap[parent])) {
+                    break;
+                }
+                place(heap[parent], index);
+                index = parent;
+            }
+            place(slot, index);
+        }
+
+        private void siftDown(int index) {
+            int slot = heap[index];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && above(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!above(heap[child], slot)) {
+                    break;
+                }
+                place(heap[child], index);
+                index = child;
+            }
+            place(slot, index);
+        }
+
+        private void place(int slot, int index) {
+            heap[index] = slot;
+            positions[slot] = index;
+        }
+    }
+}
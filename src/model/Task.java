@@ -4,19 +4,34 @@ import model.TaskStatus;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Objects;
 
 public class Task {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final byte HAS_START = 1;
+    private static final byte HAS_DURATION = 2;
+    private static final byte HAS_END = 4;
+    private static final byte FIXED_END = 8;
+
     private int id;
     private String name;
     private String description;
     private TaskStatus status;
-    private Duration  duration;
-    LocalDateTime startTime;
+    // Время хранится примитивами — секунды эпохи (UTC) и наносекунды — вместо объектов
+    // LocalDateTime и Duration. Конец считается при изменении начала или длительности,
+    // геттеры времени создают объекты только по запросу.
+    private byte timeFlags;
+    private int startNano;
+    private int durationNano;
+    private int endNano;
+    private long startSecond;
+    private long durationSeconds;
+    private long endSecond;
 
     public Task() {
         this.status = TaskStatus.NEW;
-        this.duration = Duration.ZERO;
+        setDuration(Duration.ZERO);
     }
 
     public Task(String name, String description) {
@@ -57,19 +72,101 @@ public class Task {
         this.status = status;
     }
 
-    public Duration getDuration() {return this.duration;}
+    public Duration getDuration() {
+        return (timeFlags & HAS_DURATION) == 0 ? null : Duration.ofSeconds(durationSeconds, durationNano);
+    }
+
+    public void setDuration(Duration duration) {
+        if (duration == null) {
+            timeFlags &= ~HAS_DURATION;
+        } else {
+            timeFlags |= HAS_DURATION;
+            durationSeconds = duration.getSeconds();
+            durationNano = duration.getNano();
+        }
+        refreshEnd();
+    }
+
+    public LocalDateTime getStartTime() {
+        return (timeFlags & HAS_START) == 0 ? null : LocalDateTime.ofEpochSecond(startSecond, startNano, ZoneOffset.UTC);
+    }
 
-    public void setDuration(Duration duration) {this.duration = duration;}
+    public void setStartTime(LocalDateTime startTime) {
+        if (startTime == null) {
+            timeFlags &= ~HAS_START;
+        } else {
+            timeFlags |= HAS_START;
+            startSecond = startTime.toEpochSecond(ZoneOffset.UTC);
+            startNano = startTime.getNano();
+        }
+        refreshEnd();
+    }
 
-    public LocalDateTime getStartTime() {return this.startTime;}
+    public LocalDateTime getEndTime() {
+        if ((timeFlags & HAS_END) != 0) {
+            return LocalDateTime.ofEpochSecond(endSecond, endNano, ZoneOffset.UTC);
+        }
+        if ((timeFlags & FIXED_END) == 0 && (timeFlags & HAS_START) != 0 && (timeFlags & HAS_DURATION) != 0) {
+            // конец не поместился в long: пусть LocalDateTime сообщит о выходе за диапазон
+            return getStartTime().plus(getDuration());
+        }
+        return null;
+    }
 
-    public void setStartTime(LocalDateTime startTime) {this.startTime = startTime;}
+    // Время для индексов и сравнений без создания объектов: секунды эпохи (UTC)
+    // и наносекунды. Имеют смысл, только если соответствующее время задано
+    public boolean hasStartTime() {
+        return (timeFlags & HAS_START) != 0;
+    }
 
-    public LocalDateTime getEndTime(){
-        if (startTime == null || duration == null) {
-            return null;
+    public boolean hasEndTime() {
+        return (timeFlags & HAS_END) != 0;
+    }
+
+    public long getStartSecond() {
+        return startSecond;
+    }
+
+    public int getStartNano() {
+        return startNano;
+    }
+
+    public long getEndSecond() {
+        return endSecond;
+    }
+
+    public int getEndNano() {
+        return endNano;
+    }
+
+    // Для задач, чей конец не равен началу плюс длительность (эпик)
+    protected void setFixedEndTime(LocalDateTime endTime) {
+        timeFlags |= FIXED_END;
+        if (endTime == null) {
+            timeFlags &= ~HAS_END;
+        } else {
+            timeFlags |= HAS_END;
+            endSecond = endTime.toEpochSecond(ZoneOffset.UTC);
+            endNano = endTime.getNano();
+        }
+    }
+
+    private void refreshEnd() {
+        if ((timeFlags & FIXED_END) != 0) {
+            return;
+        }
+        timeFlags &= ~HAS_END;
+        if ((timeFlags & HAS_START) == 0 || (timeFlags & HAS_DURATION) == 0) {
+            return;
+        }
+        int nano = startNano + durationNano;
+        try {
+            endSecond = Math.addExact(Math.addExact(startSecond, durationSeconds), nano / NANOS_PER_SECOND);
+        } catch (ArithmeticException e) {
+            return;
         }
-        return this.startTime.plus(duration);
+        endNano = (int) (nano % NANOS_PER_SECOND);
+        timeFlags |= HAS_END;
     }
 
     public boolean equals(Object o) {
@@ -94,8 +191,8 @@ public class Task {
                 ", name='" + name + "'" +
                 ", description='" + description + "'" +
                 ", status=" + status +
-                ", startTime=" + startTime +
-                ", duration=" + duration +
+                ", startTime=" + getStartTime() +
+                ", duration=" + getDuration() +
                 ", endTime=" + getEndTime() + "}";
     }
 }
@@ -0,0 +1,92 @@
+package test;
+
+import manager.ConcurrentHistoryManager;
+import model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentHistoryManagerTest {
+    private ConcurrentHistoryManager historyManager;
+
+    @BeforeEach
+    public void setUp() {
+        this.historyManager = new ConcurrentHistoryManager(3);
+    }
+
+    private static Task task(int id) {
+        Task task = new Task("Task" + id, "Description" + id);
+        task.setId(id);
+        return task;
+    }
+
+    @Test
+    void addShouldMoveDuplicateTaskToEnd() {
+        historyManager.add(task(1));
+        historyManager.add(task(2));
+        historyManager.add(task(1));
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(2, history.size());
+        assertEquals(2, history.get(0).getId());
+        assertEquals(1, history.get(1).getId());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyViewed() {
+        historyManager.add(task(1));
+        historyManager.add(task(2));
+        historyManager.add(task(3));
+        historyManager.add(task(1));
+        historyManager.add(task(4));
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(3, history.size());
+        assertEquals(3, history.get(0).getId());
+        assertEquals(1, history.get(1).getId());
+        assertEquals(4, history.get(2).getId());
+    }
+
+    @Test
+    void removeShouldRemoveTaskFromHistory() {
+        historyManager.add(task(1));
+        historyManager.add(task(2));
+        historyManager.remove(1);
+        historyManager.remove(5);
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(1, history.size());
+        assertEquals(2, history.get(0).getId());
+    }
+
+    @Test
+    void shouldStayBoundedUnderConcurrentViews() throws Exception {
+        ConcurrentHistoryManager bounded = new ConcurrentHistoryManager(100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    bounded.add(task((thread * 5_000 + i) % 1_000));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Task> history = bounded.getHistory();
+        assertFalse(history.isEmpty());
+        assertTrue(history.size() <= 100);
+        assertEquals(history.size(), history.stream().mapToInt(Task::getId).distinct().count());
+    }
+}
@@ -0,0 +1,64 @@
+package test;
+
+import manager.ConcurrentTaskManager;
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    @BeforeEach
+    void setUp() {
+        this.taskManager = new ConcurrentTaskManager();
+    }
+
+    @Test
+    void shouldKeepEpicConsistentUnderConcurrentWrites() throws Exception {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        int threads = 8;
+        int perThread = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Task task = new Task("Task", "Description");
+                    task.setStartTime(LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(thread * perThread + i));
+                    task.setDuration(Duration.ofMinutes(30));
+                    taskManager.addTask(task);
+                    taskManager.getTaskById(task.getId());
+
+                    SubTask subTask = new SubTask("SubTask", "Description", epic.getId());
+                    subTask.setStatus(TaskStatus.DONE);
+                    taskManager.addSubTask(subTask);
+                    taskManager.getSubTasksByEpicId(epic.getId());
+                    taskManager.getPrioritizedTasks();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread, taskManager.getAllTasks().size());
+        assertEquals(threads * perThread, taskManager.getPrioritizedTasks().size());
+        assertEquals(threads * perThread, taskManager.getSubTasksByEpicId(epic.getId()).size());
+        assertEquals(TaskStatus.DONE, taskManager.getEpicById(epic.getId()).getStatus());
+    }
+}
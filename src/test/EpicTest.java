@@ -2,9 +2,20 @@ package test;
 
 
 import model.Epic;
+import model.SubTask;
+import model.TaskStatus;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
 public class EpicTest {
     @Test
     void epicWithSameIdShouldBeEqual() {
@@ -21,4 +32,82 @@ public class EpicTest {
         epic.setId(1);
         Assertions.assertEquals(0, epic.getSubtaskIds().size());
     }
+
+    @Test
+    public void shouldDeriveStatusFromSubtaskCounters() {
+        Epic epic = new Epic("Epic1", "Description");
+        epic.setId(1);
+        SubTask subTask1 = new SubTask("SubTask1", "Description", 1);
+        subTask1.setId(2);
+        subTask1.setStatus(TaskStatus.DONE);
+        SubTask subTask2 = new SubTask("SubTask2", "Description", 1);
+        subTask2.setId(3);
+
+        epic.addSubtask(subTask1);
+        epic.addSubtask(subTask2);
+        Assertions.assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+
+        subTask2.setStatus(TaskStatus.DONE);
+        epic.updateSubtask(subTask2);
+        Assertions.assertEquals(TaskStatus.DONE, epic.getStatus());
+
+        epic.removeSubtaskId(2);
+        Assertions.assertEquals(TaskStatus.DONE, epic.getStatus());
+        epic.removeSubtaskId(3);
+        Assertions.assertEquals(TaskStatus.NEW, epic.getStatus());
+    }
+
+    @Test
+    public void aggregatesShouldMatchRecomputationFromSubtasks() {
+        Epic epic = new Epic("Epic", "Description");
+        epic.setId(1);
+        Map<Integer, SubTask> live = new LinkedHashMap<>();
+        Random random = new Random(11);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        TaskStatus[] statuses = TaskStatus.values();
+
+        for (int i = 0; i < 5_000; i++) {
+            int id = 2 + random.nextInt(200);
+            SubTask subTask = new SubTask("SubTask", "Description", 1);
+            subTask.setId(id);
+            subTask.setStatus(statuses[random.nextInt(statuses.length)]);
+            if (random.nextInt(4) != 0) {
+                subTask.setStartTime(base.plusMinutes(random.nextInt(10_000)).plusNanos(random.nextInt(3)));
+                subTask.setDuration(Duration.ofMinutes(random.nextInt(90)));
+            }
+            if (random.nextInt(3) == 0) {
+                epic.removeSubtaskId(id);
+                live.remove(id);
+            } else {
+                epic.addSubtask(subTask);
+                live.put(id, subTask);
+            }
+            if (i % 1_000 == 999) {
+                Epic copy = new Epic("Epic", "Description");
+                copy.setId(1);
+                copy.inheritSubtasks(epic);
+                epic = copy;
+            }
+
+            LocalDateTime start = null;
+            LocalDateTime end = null;
+            Duration duration = Duration.ZERO;
+            Set<TaskStatus> seen = EnumSet.noneOf(TaskStatus.class);
+            for (SubTask expected : live.values()) {
+                seen.add(expected.getStatus());
+                if (expected.getStartTime() != null) {
+                    start = start == null || expected.getStartTime().isBefore(start) ? expected.getStartTime() : start;
+                    end = end == null || expected.getEndTime().isAfter(end) ? expected.getEndTime() : end;
+                    duration = duration.plus(expected.getDuration());
+                }
+            }
+            TaskStatus status = seen.isEmpty() || seen.equals(EnumSet.of(TaskStatus.NEW)) ? TaskStatus.NEW
+                    : seen.equals(EnumSet.of(TaskStatus.DONE)) ? TaskStatus.DONE : TaskStatus.IN_PROGRESS;
+            Assertions.assertEquals(List.copyOf(live.keySet()), epic.getSubtaskIds().stream().boxed().toList());
+            Assertions.assertEquals(status, epic.getStatus());
+            Assertions.assertEquals(start, epic.getStartTime());
+            Assertions.assertEquals(end, epic.getEndTime());
+            Assertions.assertEquals(duration, epic.getDuration());
+        }
+    }
 }
@@ -1,10 +1,16 @@
 package test;
 
+import manager.Durability;
 import manager.FileBackedTaskManager;
+import manager.PersistenceMode;
+import manager.SnapshotFormat;
+import manager.TaskBatch;
 import model.Epic;
 import model.SubTask;
 import model.Task;
 import model.TaskStatus;
+import model.TaskType;
+import util.StringPool;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -14,6 +20,11 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -85,4 +96,440 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
             FileBackedTaskManager.loadFromFile(testFile);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldRestoreStateFromJournal() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(testFile, PersistenceMode.JOURNAL);
+        Task task = new Task("Task", "Description");
+        task.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        task.setDuration(Duration.ofMinutes(30));
+        manager.addTask(task);
+        Epic epic = new Epic("Epic", "Description");
+        manager.addEpic(epic);
+        SubTask subTask1 = new SubTask("SubTask1", "Description", epic.getId());
+        subTask1.setStatus(TaskStatus.DONE);
+        manager.addSubTask(subTask1);
+        SubTask subTask2 = new SubTask("SubTask2", "Description", epic.getId());
+        manager.addSubTask(subTask2);
+
+        Task updated = new Task("Updated", "Description");
+        updated.setId(task.getId());
+        updated.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(updated);
+        manager.removeSubTaskById(subTask2.getId());
+
+        assertEquals(0, testFile.length(), "Снапшот не должен переписываться в режиме журнала");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+        assertEquals("Updated", loaded.getTaskById(task.getId()).getName());
+        assertEquals(TaskStatus.IN_PROGRESS, loaded.getTaskById(task.getId()).getStatus());
+        assertEquals(1, loaded.getAllSubTasks().size());
+        assertEquals(TaskStatus.DONE, loaded.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    void shouldRestoreDurationInMinutes() {
+        Task task = new Task("Task", "Description");
+        task.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        task.setDuration(Duration.ofMinutes(90));
+        taskManager.addTask(task);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile);
+        assertEquals(Duration.ofMinutes(90), loaded.getAllTasks().get(0).getDuration());
+    }
+
+    @Test
+    void shouldCoalesceWritesUntilFlush() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(testFile);
+        manager.enableWriteBehind(Duration.ofHours(1));
+        manager.setDurability(Durability.FSYNC_ON_FLUSH);
+        Task task = new Task("Task", "Description");
+        manager.addTask(task);
+        for (int i = 0; i < 1000; i++) {
+            Task updated = new Task("Task " + i, "Description");
+            updated.setId(task.getId());
+            manager.updateTask(updated);
+        }
+
+        assertEquals(0, testFile.length(), "До flush файл не должен переписываться");
+
+        manager.flush();
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile);
+        assertEquals("Task 999", loaded.getTaskById(task.getId()).getName());
+        manager.close();
+    }
+
+    @Test
+    void shouldFlushPendingJournalOnClose() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(testFile, PersistenceMode.JOURNAL);
+        manager.enableWriteBehind(Duration.ofMillis(10));
+        Epic epic = new Epic("Epic", "Description");
+        manager.addEpic(epic);
+        SubTask subTask = new SubTask("SubTask", "Description", epic.getId());
+        subTask.setStatus(TaskStatus.DONE);
+        manager.addSubTask(subTask);
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+        assertEquals(1, loaded.getAllSubTasks().size());
+        assertEquals(TaskStatus.DONE, loaded.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    void shouldRestoreStateFromBinarySnapshot() {
+        taskManager.setSnapshotFormat(SnapshotFormat.BINARY);
+        Task task = new Task("Задача, с запятой", "Описание\nв две строки");
+        task.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0, 0, 500));
+        task.setDuration(Duration.ofMinutes(45));
+        taskManager.addTask(task);
+        Epic epic = new Epic("Epic", null);
+        taskManager.addEpic(epic);
+        SubTask subTask = new SubTask("SubTask", "Description", epic.getId());
+        subTask.setStatus(TaskStatus.DONE);
+        subTask.setStartTime(LocalDateTime.of(2025, 1, 2, 10, 0));
+        subTask.setDuration(Duration.ofMinutes(30));
+        taskManager.addSubTask(subTask);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile);
+        assertEquals(SnapshotFormat.BINARY, loaded.getSnapshotFormat());
+        Task restored = loaded.getTaskById(task.getId());
+        assertEquals("Задача, с запятой", restored.getName());
+        assertEquals("Описание\nв две строки", restored.getDescription());
+        assertEquals(task.getStartTime(), restored.getStartTime());
+        assertEquals(Duration.ofMinutes(45), restored.getDuration());
+        Epic restoredEpic = loaded.getEpicById(epic.getId());
+        assertNull(restoredEpic.getDescription());
+        assertEquals(TaskStatus.DONE, restoredEpic.getStatus());
+        assertEquals(subTask.getEndTime(), restoredEpic.getEndTime());
+
+        // прочитанный снапшот не держится открытым и перезаписывается сразу
+        loaded.removeTaskById(task.getId());
+        assertNull(FileBackedTaskManager.loadFromFile(testFile).getTaskById(task.getId()));
+    }
+
+    @Test
+    void binarySnapshotShouldBeReadAcrossChunkBoundaries() throws IOException {
+        taskManager.setSnapshotFormat(SnapshotFormat.BINARY);
+        String longDescription = "Описание ".repeat(20_000);
+        Task large = new Task("Большая", longDescription);
+        taskManager.addTask(large);
+        for (int i = 0; i < 3000; i++) {
+            taskManager.addTask(new Task("Task " + i, "Description " + i));
+        }
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile);
+        assertEquals(3001, loaded.getAllTasks().size());
+        assertEquals(longDescription, loaded.getTaskById(large.getId()).getDescription());
+        assertEquals(taskManager.getAllTasks(), loaded.getAllTasks());
+
+        byte[] bytes = Files.readAllBytes(testFile.toPath());
+        Files.write(testFile.toPath(), java.util.Arrays.copyOf(bytes, bytes.length - 5));
+        assertThrows(IllegalArgumentException.class, () -> FileBackedTaskManager.loadFromFile(testFile));
+    }
+
+    @Test
+    void shouldPreserveIdsAndLinkSubtasksWrittenBeforeEpic() throws IOException {
+        try (FileWriter writer = new FileWriter(testFile)) {
+            writer.write("id,type,name,status,description,epic,duration,startTime\n");
+            writer.write("7,SUBTASK,SubTask,DONE,Description,12,30,2025-01-01T10:00:00\n");
+            writer.write("3,TASK,Task,NEW,Description,,,\n");
+            writer.write("12,EPIC,Epic,NEW,Description,,,\n");
+        }
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile);
+        assertEquals("Task", loaded.getTaskById(3).getName());
+        assertEquals(12, loaded.getSubTaskById(7).getEpicId());
+        Epic epic = loaded.getEpicById(12);
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 30), epic.getEndTime());
+        assertEquals(1, loaded.getPrioritizedTasks().size());
+
+        Task task = new Task("New", "Description");
+        loaded.addTask(task);
+        assertEquals(13, task.getId(), "nextId должен продолжаться после максимального id");
+    }
+
+    @Test
+    void shouldWriteRowsInPreviousFormat() throws IOException {
+        Task task = new Task("Task", "Description");
+        task.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 5, 0, 1_500_000));
+        task.setDuration(Duration.ofMinutes(30));
+        taskManager.addTask(task);
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        SubTask subTask = new SubTask("SubTask", "Description", epic.getId());
+        subTask.setStartTime(LocalDateTime.of(2025, 1, 2, 9, 0));
+        subTask.setDuration(Duration.ofMinutes(15));
+        taskManager.addSubTask(subTask);
+
+        assertEquals(List.of(
+                "id,type,name,status,description,epic,duration,startTime",
+                "1,TASK,Task,NEW,Description,,30,2025-01-01T10:05:00.0015",
+                "3,SUBTASK,SubTask,NEW,Description,2,15,2025-01-02T09:00:00",
+                "2,EPIC,Epic,NEW,Description,,900,2025-01-02T09:00:00"
+        ), Files.readAllLines(testFile.toPath()));
+    }
+
+    @Test
+    void shouldEscapeCommasAndNewlines() {
+        Task task = new Task("Купить хлеб, молоко", "Строка 1\nСтрока 2");
+        taskManager.addTask(task);
+        Task quoted = new Task("\"Цитата\", и ещё", "\"в кавычках\"");
+        taskManager.addTask(quoted);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile);
+        assertEquals("Купить хлеб, молоко", loaded.getTaskById(task.getId()).getName());
+        assertEquals("Строка 1\nСтрока 2", loaded.getTaskById(task.getId()).getDescription());
+        assertEquals("\"Цитата\", и ещё", loaded.getTaskById(quoted.getId()).getName());
+        assertEquals("\"в кавычках\"", loaded.getTaskById(quoted.getId()).getDescription());
+    }
+
+    @Test
+    void shouldKeepCarriageReturnsInsideFields() {
+        Task task = new Task("a\rb", "line1\r\nline2\r");
+        taskManager.addTask(task);
+        FileBackedTaskManager journaled = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+        Task logged = new Task("c\r\nd", "\r");
+        journaled.addTask(logged);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile);
+        assertEquals("a\rb", loaded.getTaskById(task.getId()).getName());
+        assertEquals("line1\r\nline2\r", loaded.getTaskById(task.getId()).getDescription());
+        FileBackedTaskManager replayed = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+        assertEquals("c\r\nd", replayed.getTaskById(logged.getId()).getName());
+        assertEquals("\r", replayed.getTaskById(logged.getId()).getDescription());
+    }
+
+    @Test
+    void batchShouldBeJournaledAsOneBlock() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(testFile, PersistenceMode.JOURNAL);
+        Epic epic = new Epic("Epic", "Description");
+        manager.addEpic(epic);
+        TaskBatch batch = new TaskBatch();
+        for (int i = 0; i < 100; i++) {
+            SubTask subTask = new SubTask("SubTask " + i, "Description", epic.getId());
+            subTask.setStatus(TaskStatus.DONE);
+            subTask.setStartTime(LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(i));
+            subTask.setDuration(Duration.ofMinutes(30));
+            batch.addSubTask(subTask);
+        }
+        manager.applyBatch(batch);
+
+        List<String> lines = Files.readAllLines(manager.getJournalFile().toPath());
+        assertEquals(102, lines.size());
+        assertEquals("BATCH,100", lines.get(1));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+        assertEquals(100, loaded.getAllSubTasks().size());
+        assertEquals(TaskStatus.DONE, loaded.getEpicById(epic.getId()).getStatus());
+
+        Files.write(manager.getJournalFile().toPath(), lines.subList(0, 50));
+        FileBackedTaskManager torn = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+        assertTrue(torn.getAllSubTasks().isEmpty(), "Оборванный набор не должен применяться частично");
+    }
+
+    @Test
+    void tornLastJournalRecordShouldBeDropped() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(testFile, PersistenceMode.JOURNAL);
+        Task first = new Task("First", "Description");
+        manager.addTask(first);
+        manager.addTask(new Task("Second", "Строка 1\nСтрока 2"));
+        Path journal = manager.getJournalFile().toPath();
+        byte[] bytes = Files.readAllBytes(journal);
+
+        for (int cut : new int[]{bytes.length - 3, bytes.length - 16}) {
+            Files.write(journal, java.util.Arrays.copyOf(bytes, cut));
+            FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+            assertEquals(List.of(first), loaded.getAllTasks(), "Оборванная запись должна отбрасываться");
+
+            Task third = new Task("Third", "Description");
+            loaded.addTask(third);
+            FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+            assertEquals(2, reloaded.getAllTasks().size(), "Новые записи должны дописываться после последней целой");
+            assertEquals(third, reloaded.getTaskById(third.getId()));
+        }
+    }
+
+    @Test
+    void noOpCallsShouldNotBeJournaled() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(testFile, PersistenceMode.JOURNAL);
+        Task task = new Task("Task", "Description");
+        manager.addTask(task);
+        Path journal = manager.getJournalFile().toPath();
+        byte[] before = Files.readAllBytes(journal);
+        double garbage = manager.getGarbageRatio();
+
+        manager.addSubTask(new SubTask("Orphan", "Description", 999));
+        Task unknown = new Task("Unknown", "Description");
+        unknown.setId(999);
+        manager.updateTask(unknown);
+        manager.updateEpic(new Epic("Unknown", "Description"));
+        manager.removeTaskById(999);
+        manager.removeEpicById(999);
+        manager.removeSubTaskById(999);
+        manager.removeAllEpics();
+        manager.removeAllSubTasks();
+
+        assertArrayEquals(before, Files.readAllBytes(journal), "Пустые вызовы не должны попадать в журнал");
+        assertEquals(garbage, manager.getGarbageRatio());
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+        assertEquals(List.of(task), loaded.getAllTasks());
+    }
+
+    @Test
+    void loadedTasksShouldBeIndexedByStatusAndText() {
+        Task task = new Task("Квартальный отчёт", "Description");
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        taskManager.addTask(task);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile);
+        assertEquals(1, loaded.countTasksByStatus(TaskType.TASK, TaskStatus.IN_PROGRESS));
+        assertEquals(List.of(task.getId()), loaded.searchTasks("отч", 10));
+    }
+
+    @Test
+    void loadShouldDeduplicateRepeatedStrings() {
+        Epic epic = new Epic("Уборка", "Еженедельно");
+        taskManager.addEpic(epic);
+        for (int i = 0; i < 50; i++) {
+            taskManager.addSubTask(new SubTask("Пропылесосить", "Еженедельно", epic.getId()));
+        }
+
+        StringPool pool = new StringPool(64);
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.SNAPSHOT, pool);
+
+        List<SubTask> subTasks = loaded.getAllSubTasks();
+        assertEquals(50, subTasks.size());
+        for (SubTask subTask : subTasks) {
+            assertSame(subTasks.get(0).getName(), subTask.getName());
+            assertSame(loaded.getEpicById(epic.getId()).getDescription(), subTask.getDescription());
+        }
+        assertEquals(3, pool.getMisses());
+        assertEquals(99, pool.getHits());
+        assertTrue(pool.getHitRate() > 0.9);
+    }
+
+    @Test
+    void compactionShouldFoldJournalIntoSnapshot() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(testFile, PersistenceMode.JOURNAL);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Task task = new Task("Task " + i, "Description");
+            manager.addTask(task);
+            tasks.add(task);
+        }
+        for (Task task : tasks) {
+            Task updated = new Task(task.getName(), "Updated");
+            updated.setId(task.getId());
+            updated.setStatus(TaskStatus.DONE);
+            manager.updateTask(updated);
+        }
+        manager.removeTaskById(tasks.get(0).getId());
+        assertTrue(manager.getGarbageRatio() > 0.5);
+
+        manager.compact();
+
+        assertEquals(0, manager.getGarbageRatio());
+        assertFalse(manager.getJournalFile().exists());
+        assertFalse(new File(testFile.getPath() + ".compact").exists());
+        Task late = new Task("Late", "Description");
+        manager.addTask(late);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+        assertEquals(10, loaded.getAllTasks().size());
+        assertNull(loaded.getTaskById(tasks.get(0).getId()));
+        assertEquals("Updated", loaded.getTaskById(tasks.get(5).getId()).getDescription());
+        assertEquals(TaskStatus.DONE, loaded.getTaskById(tasks.get(5).getId()).getStatus());
+        assertEquals("Late", loaded.getTaskById(late.getId()).getName());
+    }
+
+    @Test
+    void compactionShouldRunInBackgroundOnceGarbageExceedsRatio() throws InterruptedException, IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(testFile, PersistenceMode.JOURNAL);
+        manager.enableCompaction(0.5, 20);
+        Task task = new Task("Task", "Description");
+        manager.addTask(task);
+        for (int i = 0; i < 100; i++) {
+            Task updated = new Task("Task", "Version " + i);
+            updated.setId(task.getId());
+            manager.updateTask(updated);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (testFile.length() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        manager.close();
+        assertTrue(testFile.length() > 0, "Журнал должен уплотниться в снапшот");
+        long tail = manager.getJournalFile().exists() ? Files.readAllLines(manager.getJournalFile().toPath()).size() : 0;
+        assertTrue(tail < 101, "Уплотнение должно отрезать журнал");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+        assertEquals("Version 99", loaded.getTaskById(task.getId()).getDescription());
+        assertEquals(1, loaded.getAllTasks().size());
+    }
+
+    @Test
+    void interruptedCompactionShouldBeRecoveredOnLoad() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(testFile, PersistenceMode.JOURNAL);
+        Task first = new Task("First", "Description");
+        manager.addTask(first);
+        // сбой после отрезания журнала, но до подмены снапшота
+        File compact = new File(testFile.getPath() + ".compact");
+        File segment = new File(manager.getJournalFile().getPath() + ".old.1");
+        Files.createFile(compact.toPath());
+        Files.move(manager.getJournalFile().toPath(), segment.toPath());
+        Task second = new Task("Second", "Description");
+        manager.addTask(second);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+        assertEquals(2, loaded.getAllTasks().size());
+
+        loaded.compact();
+        assertFalse(segment.exists());
+        assertFalse(compact.exists());
+        assertEquals(2, FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL).getAllTasks().size());
+
+        // сбой после подмены снапшота: сегмент уже учтён и при загрузке отбрасывается
+        Files.writeString(segment.toPath(), "REMOVE,TASK," + first.getId() + "\n");
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+        assertNotNull(reloaded.getTaskById(first.getId()));
+        assertFalse(segment.exists());
+    }
+
+    @Test
+    void failedCompactionShouldReturnWriteBehindRecordsToQueue() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(testFile, PersistenceMode.JOURNAL);
+        manager.enableWriteBehind(Duration.ofHours(1));
+        Task first = new Task("First", "Description");
+        manager.addTask(first);
+        manager.flush();
+        Task second = new Task("Second", "Description");
+        manager.addTask(second);
+        // первая запись уплотнения — в сегмент; после неё на месте .compact оказывается
+        // каталог, и запись снапшота падает
+        File compact = new File(testFile.getPath() + ".compact");
+        manager.setSaveObserver((bytes, nanos) -> {
+            if (compact.isFile()) {
+                compact.delete();
+                compact.mkdir();
+            }
+        });
+
+        assertThrows(RuntimeException.class, manager::compact);
+        manager.setSaveObserver(null);
+        manager.flush();
+        assertTrue(Files.readString(manager.getJournalFile().toPath()).contains("Second"),
+                "Записи, снятые при отрезании журнала, должны вернуться в очередь");
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+        assertEquals(2, loaded.getAllTasks().size());
+        assertEquals("Second", loaded.getTaskById(second.getId()).getName());
+
+        Files.delete(compact.toPath());
+        manager.compact();
+        manager.close();
+        FileBackedTaskManager compacted = FileBackedTaskManager.loadFromFile(testFile, PersistenceMode.JOURNAL);
+        assertEquals(2, compacted.getAllTasks().size());
+        assertEquals("First", compacted.getTaskById(first.getId()).getName());
+    }
+}
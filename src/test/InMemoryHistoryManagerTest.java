@@ -194,4 +194,38 @@ public class InMemoryHistoryManagerTest {
         assertEquals(task1, history.get(0));
         assertEquals(task2, history.get(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldEvictOldestWhenMaxSizeReached() {
+        HistoryManager bounded = new InMemoryHistoryManager(2);
+        Task task1 = new Task("Task1", "Description1");
+        Task task2 = new Task("Task2", "Description2");
+        Task task3 = new Task("Task3", "Description3");
+        task1.setId(1);
+        task2.setId(2);
+        task3.setId(3);
+
+        bounded.add(task1);
+        bounded.add(task2);
+        bounded.add(task1);
+        bounded.add(task3);
+
+        List<Task> history = bounded.getHistory();
+        assertEquals(2, history.size());
+        assertEquals(task1, history.get(0));
+        assertEquals(task3, history.get(1));
+    }
+
+    @Test
+    void historyViewShouldBeReusedUntilHistoryChanges() {
+        Task task = new Task("Task1", "Something");
+        task.setId(1);
+        historyManager.add(task);
+        List<Task> view = historyManager.getHistoryView();
+        assertSame(view, historyManager.getHistoryView());
+
+        historyManager.remove(1);
+        assertTrue(historyManager.getHistoryView().isEmpty());
+        assertEquals(1, view.size());
+    }
+}
@@ -1,7 +1,21 @@
 package test;
 
 import manager.InMemoryTaskManager;
+import manager.SchedulingRequest;
+import manager.SchedulingResult;
+import manager.TaskEvent;
+import model.Task;
+import util.StringPool;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
 
@@ -9,4 +23,79 @@ public class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager
     void setUp() {
         this.taskManager = new InMemoryTaskManager();
     }
-}
\ No newline at end of file
+
+    @Test
+    void autoScheduleShouldPlaceManyTasksWithoutOverlaps() {
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000; i++) {
+            Task busy = new Task("Busy " + i, "Description");
+            busy.setStartTime(from.plusHours(3L * i));
+            busy.setDuration(Duration.ofMinutes(30 + random.nextInt(120)));
+            taskManager.addTask(busy);
+        }
+        SchedulingRequest request = new SchedulingRequest(from);
+        for (int i = 0; i < 20_000; i++) {
+            Task task = new Task("Chore " + i, "Description");
+            task.setDuration(Duration.ofMinutes(5 + random.nextInt(60)));
+            taskManager.addTask(task);
+            request.add(task.getId(), random.nextInt(10));
+        }
+
+        SchedulingResult result = taskManager.autoSchedule(request);
+
+        assertTrue(result.getUnscheduledIds().isEmpty());
+        List<Task> schedule = taskManager.getPrioritizedTasks();
+        assertEquals(22_000, schedule.size());
+        for (int i = 1; i < schedule.size(); i++) {
+            assertTrue(schedule.get(i - 1).getEndTime().isBefore(schedule.get(i).getStartTime()));
+        }
+    }
+
+    @Test
+    void stringPoolShouldDeduplicateAddedAndUpdatedTasks() {
+        StringPool pool = new StringPool(16);
+        taskManager.setStringPool(pool);
+        Task first = new Task(new String("Полить цветы"), new String("Каждый день"));
+        Task second = new Task(new String("Полить цветы"), new String("Каждый день"));
+        taskManager.addTask(first);
+        taskManager.addTask(second);
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getDescription(), second.getDescription());
+
+        Task update = new Task(new String("Полить цветы"), "Раз в неделю");
+        update.setId(first.getId());
+        taskManager.updateTask(update);
+        assertSame(second.getName(), taskManager.getTaskById(first.getId()).getName());
+        assertEquals(3, pool.getHits());
+        assertEquals(3, pool.getMisses());
+        assertEquals(0.5, pool.getHitRate());
+    }
+
+    @Test
+    void slowSubscriberShouldNotBlockWriters() {
+        taskManager.getEvents().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                // ничего не запрашиваем: буфер подписчика быстро заполнится
+            }
+
+            @Override
+            public void onNext(TaskEvent event) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        for (int i = 0; i < Flow.defaultBufferSize() * 4; i++) {
+            taskManager.addTask(new Task("Task " + i, "Description"));
+        }
+        assertTrue(taskManager.getDroppedEventCount() > 0);
+    }
+}
@@ -0,0 +1,100 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import util.IntHashMap;
+import util.IntIntHashMap;
+import util.IntList;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntHashMapTest {
+
+    @Test
+    void shouldBehaveLikeHashMap() {
+        IntHashMap<String> map = new IntHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) * 1024;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertEquals(expected.size(), map.values().size());
+    }
+
+    @Test
+    void intIntMapShouldBehaveLikeHashMap() {
+        IntIntHashMap map = new IntIntHashMap(-1);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) * 1024;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.getOrDefault(key, -1), map.remove(key));
+                expected.remove(key);
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertEquals(-1, map.get(-3));
+        assertFalse(map.containsKey(-3));
+    }
+
+    @Test
+    void shouldClear() {
+        IntHashMap<String> map = new IntHashMap<>();
+        map.put(1, "one");
+        map.put(-5, "minus five");
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertFalse(map.containsKey(-5));
+    }
+
+    @Test
+    void intListShouldRemoveByValue() {
+        IntList list = new IntList();
+        list.add(3);
+        list.add(5);
+        list.add(7);
+
+        assertTrue(list.removeValue(5));
+        assertFalse(list.removeValue(42));
+        assertEquals(2, list.size());
+        assertFalse(list.contains(5));
+        assertEquals("[3, 7]", list.toString());
+    }
+
+    @Test
+    void intListRemoveAllShouldKeepOrder() {
+        IntList list = new IntList();
+        for (int i = 1; i <= 5; i++) {
+            list.add(i * 10);
+        }
+        list.set(1, -1);
+        list.set(3, -1);
+
+        assertEquals(2, list.removeAll(-1));
+        assertEquals("[10, 30, 50]", list.toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.set(3, 0));
+    }
+}
@@ -1,8 +1,13 @@
 package test;
 
 import manager.*;
+import model.Task;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
 
 public class ManagersTest {
     @Test
@@ -12,10 +17,63 @@ public class ManagersTest {
         Assertions.assertTrue(taskManager instanceof InMemoryTaskManager);
     }
 
+    @Test
+    void shouldReturnConcurrentTaskManager() {
+        TaskManager taskManager = Managers.getConcurrent();
+        Assertions.assertTrue(taskManager instanceof ConcurrentTaskManager);
+    }
+
     @Test
     void shouldReturnInitializedHistoryManager() {
         HistoryManager historyManager = Managers.getDefaultHistory();
         Assertions.assertNotNull(historyManager);
         Assertions.assertTrue(historyManager instanceof InMemoryHistoryManager);
     }
+
+    @Test
+    void instrumentedManagerShouldCountOperationsAndHistory() {
+        InstrumentedTaskManager manager = Managers.getInstrumented(Managers.getDefault());
+        for (int i = 0; i < 100; i++) {
+            manager.addTask(new Task("Задача " + i, "Описание"));
+        }
+        manager.getTaskById(1);
+        manager.getTaskById(2);
+
+        MetricsSnapshot metrics = manager.getMetrics();
+        MetricsSnapshot.LatencyStats adds = metrics.getOperation(InstrumentedTaskManager.Operation.ADD_TASK);
+        Assertions.assertEquals(100, adds.getCount());
+        Assertions.assertTrue(adds.getP50Nanos() <= adds.getP99Nanos());
+        Assertions.assertTrue(adds.getP99Nanos() <= adds.getP999Nanos());
+        Assertions.assertTrue(adds.getMaxNanos() <= adds.getP999Nanos() * 9 / 8 + 1);
+        Assertions.assertEquals(2, metrics.getOperation(InstrumentedTaskManager.Operation.GET_TASK_BY_ID).getCount());
+        Assertions.assertEquals(0, metrics.getOperation(InstrumentedTaskManager.Operation.REMOVE_ALL_TASKS).getCount());
+        Assertions.assertEquals(2, metrics.getHistorySize());
+        Assertions.assertEquals(100, manager.getAllTasks().size());
+    }
+
+    @Test
+    void instrumentedManagerShouldMeasureSaves(@TempDir Path dir) {
+        File file = dir.resolve("tasks.csv").toFile();
+        InstrumentedTaskManager manager = Managers.getInstrumented(new FileBackedTaskManager(file));
+        manager.addTask(new Task("Задача", "Описание"));
+        manager.addTask(new Task("Ещё задача", "Описание"));
+
+        // два снапшота: второй — текущий файл, первый короче его
+        MetricsSnapshot metrics = manager.getMetrics();
+        Assertions.assertEquals(2, metrics.getSaves().getCount());
+        Assertions.assertTrue(metrics.getSavedBytes() > file.length());
+        Assertions.assertTrue(metrics.getSavedBytes() < 2 * file.length());
+    }
+
+    @Test
+    void secondInstrumentationShouldKeepFirstSaveObserver(@TempDir Path dir) {
+        FileBackedTaskManager fileBacked = new FileBackedTaskManager(dir.resolve("tasks.csv").toFile());
+        InstrumentedTaskManager first = Managers.getInstrumented(fileBacked);
+        InstrumentedTaskManager second = Managers.getInstrumented(fileBacked);
+        second.addTask(new Task("Задача", "Описание"));
+
+        Assertions.assertEquals(1, first.getMetrics().getSaves().getCount());
+        Assertions.assertEquals(1, second.getMetrics().getSaves().getCount());
+        Assertions.assertEquals(first.getMetrics().getSavedBytes(), second.getMetrics().getSavedBytes());
+    }
 }
@@ -1,15 +1,27 @@
 package test;
 
+import manager.TaskBatch;
+import manager.TaskEvent;
+import manager.SchedulingRequest;
+import manager.SchedulingResult;
 import manager.TaskManager;
+import manager.TimeSlot;
 import model.Epic;
 import model.SubTask;
 import model.Task;
 import model.TaskStatus;
+import model.TaskType;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -249,6 +261,28 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertTrue(epic.getSubtaskIds().contains(subTask2.getId()));
     }
 
+    @Test
+    void epicSubtasksShouldKeepInsertionOrderAfterRemoval() {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            SubTask subTask = new SubTask("SubTask " + i, "Description", epic.getId());
+            taskManager.addSubTask(subTask);
+            ids.add(subTask.getId());
+        }
+
+        taskManager.removeSubTaskById(ids.get(1));
+        assertEquals(List.of(ids.get(0), ids.get(2), ids.get(3), ids.get(4)),
+                taskManager.getSubTasksByEpicId(epic.getId()).stream().map(Task::getId).toList());
+
+        SubTask late = new SubTask("Late", "Description", epic.getId());
+        taskManager.addSubTask(late);
+        taskManager.removeSubTaskById(ids.get(3));
+        assertEquals(List.of(ids.get(0), ids.get(2), ids.get(4), late.getId()),
+                taskManager.getSubTasksByEpicId(epic.getId()).stream().map(Task::getId).toList());
+    }
+
     @Test
     void shouldCleanEpicWhenAllSubtasksRemoved() {
         Epic epic = new Epic("Epic", "Description");
@@ -438,4 +472,612 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertFalse(taskManager.isTasksOverlap(task1, task2));
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldRejectOverlappingTask() {
+        Task task1 = new Task("Task 1", "Description");
+        task1.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        task1.setDuration(Duration.ofHours(2));
+        taskManager.addTask(task1);
+
+        Task task2 = new Task("Task 2", "Description");
+        task2.setStartTime(LocalDateTime.of(2025, 1, 1, 11, 0));
+        task2.setDuration(Duration.ofHours(1));
+
+        assertThrows(RuntimeException.class, () -> taskManager.addTask(task2));
+        assertEquals(1, taskManager.getAllTasks().size());
+    }
+
+    @Test
+    void shouldReleaseOldSlotWhenTaskRetimed() {
+        Task task = new Task("Task", "Description");
+        task.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        task.setDuration(Duration.ofHours(1));
+        taskManager.addTask(task);
+
+        task.setStartTime(LocalDateTime.of(2025, 1, 1, 14, 0));
+        taskManager.updateTask(task);
+
+        Task early = new Task("Early", "Description");
+        early.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        early.setDuration(Duration.ofHours(1));
+        assertDoesNotThrow(() -> taskManager.addTask(early));
+
+        Task late = new Task("Late", "Description");
+        late.setStartTime(LocalDateTime.of(2025, 1, 1, 14, 30));
+        late.setDuration(Duration.ofHours(1));
+        assertThrows(RuntimeException.class, () -> taskManager.addTask(late));
+        assertEquals(2, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void epicStatusShouldFollowSubtaskUpdatedInPlace() {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        SubTask subTask = new SubTask("SubTask", "Description", epic.getId());
+        taskManager.addSubTask(subTask);
+
+        subTask.setStatus(TaskStatus.DONE);
+        taskManager.updateSubTask(subTask);
+        assertEquals(TaskStatus.DONE, taskManager.getEpicById(epic.getId()).getStatus());
+
+        subTask.setStatus(TaskStatus.IN_PROGRESS);
+        taskManager.updateSubTask(subTask);
+        assertEquals(TaskStatus.IN_PROGRESS, taskManager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    void updatingStoredEpicShouldRecomputeItsStatus() {
+        Epic empty = new Epic("Empty", "Description");
+        taskManager.addEpic(empty);
+        empty.setStatus(TaskStatus.DONE);
+        taskManager.updateEpic(empty);
+        assertEquals(TaskStatus.NEW, taskManager.getEpicById(empty.getId()).getStatus());
+
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        SubTask subTask = new SubTask("SubTask", "Description", epic.getId());
+        subTask.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        subTask.setDuration(Duration.ofHours(1));
+        taskManager.addSubTask(subTask);
+        epic.setStatus(TaskStatus.DONE);
+        epic.setStartTime(null);
+        taskManager.updateEpic(epic);
+        assertEquals(TaskStatus.NEW, taskManager.getEpicById(epic.getId()).getStatus());
+        assertEquals(subTask.getStartTime(), taskManager.getEpicById(epic.getId()).getStartTime());
+        assertEquals(2, taskManager.countTasksByStatus(TaskType.EPIC, TaskStatus.NEW));
+        assertEquals(0, taskManager.countTasksByStatus(TaskType.EPIC, TaskStatus.DONE));
+    }
+
+    @Test
+    void epicTimeShouldFollowSubtaskUpdatesAndRemovals() {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        SubTask subTask1 = new SubTask("SubTask1", "Description", epic.getId());
+        subTask1.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        subTask1.setDuration(Duration.ofHours(1));
+        taskManager.addSubTask(subTask1);
+        SubTask subTask2 = new SubTask("SubTask2", "Description", epic.getId());
+        subTask2.setStartTime(LocalDateTime.of(2025, 1, 1, 12, 0));
+        subTask2.setDuration(Duration.ofMinutes(30));
+        taskManager.addSubTask(subTask2);
+
+        subTask1.setDuration(Duration.ofMinutes(90));
+        taskManager.updateSubTask(subTask1);
+
+        Epic savedEpic = taskManager.getEpicById(epic.getId());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0), savedEpic.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 12, 30), savedEpic.getEndTime());
+        assertEquals(Duration.ofHours(2), savedEpic.getDuration());
+
+        taskManager.removeSubTaskById(subTask2.getId());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 11, 30), savedEpic.getEndTime());
+        assertEquals(Duration.ofMinutes(90), savedEpic.getDuration());
+
+        taskManager.removeSubTaskById(subTask1.getId());
+        assertNull(savedEpic.getStartTime());
+        assertNull(savedEpic.getEndTime());
+    }
+
+    @Test
+    void viewsShouldBeReusedUntilManagerChanges() {
+        Task task = new Task("Task", "Description");
+        task.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        task.setDuration(Duration.ofMinutes(30));
+        taskManager.addTask(task);
+
+        List<Task> tasks = taskManager.getTasksView();
+        List<Task> prioritized = taskManager.getPrioritizedView();
+        assertSame(tasks, taskManager.getTasksView());
+        assertSame(prioritized, taskManager.getPrioritizedView());
+        assertThrows(UnsupportedOperationException.class, () -> tasks.add(task));
+
+        Task other = new Task("Other", "Description");
+        taskManager.addTask(other);
+        assertNotSame(tasks, taskManager.getTasksView());
+        assertEquals(2, taskManager.getTasksView().size());
+        assertEquals(prioritized, taskManager.getPrioritizedView());
+        assertEquals(1, tasks.size(), "Выданный снимок не должен меняться");
+    }
+
+    @Test
+    void shouldPageByIdAndByPriority() {
+        for (int i = 0; i < 5; i++) {
+            Task task = new Task("Task " + i, "Description");
+            task.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0).minusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            taskManager.addTask(task);
+        }
+        taskManager.removeTaskById(2);
+
+        List<Task> first = taskManager.getTasksPage(0, 2);
+        assertEquals(List.of(1, 3), first.stream().map(Task::getId).toList());
+        List<Task> second = taskManager.getTasksPage(3, 2);
+        assertEquals(List.of(4, 5), second.stream().map(Task::getId).toList());
+        assertTrue(taskManager.getTasksPage(5, 2).isEmpty());
+
+        List<Task> prioritized = taskManager.getPrioritizedPage(null, 0, 2);
+        assertEquals(List.of(5, 4), prioritized.stream().map(Task::getId).toList());
+        Task last = prioritized.get(1);
+        assertEquals(List.of(3, 1), taskManager.getPrioritizedPage(last.getStartTime(), last.getId(), 10)
+                .stream().map(Task::getId).toList());
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksPage(0, 0));
+    }
+
+    @Test
+    void prioritizedPageShouldContinueAfterCursorTaskIsGone() {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 10, 0);
+        for (int i = 0; i < 4; i++) {
+            Task task = new Task("Task " + i, "Description");
+            task.setStartTime(base.plusHours(i));
+            task.setDuration(Duration.ofMinutes(30));
+            taskManager.addTask(task);
+        }
+        List<Task> first = taskManager.getPrioritizedPage(null, 0, 2);
+        assertEquals(List.of(1, 2), first.stream().map(Task::getId).toList());
+        Task cursor = first.get(1);
+        LocalDateTime cursorStart = cursor.getStartTime();
+
+        taskManager.removeTaskById(cursor.getId());
+        assertEquals(List.of(3, 4), taskManager.getPrioritizedPage(cursorStart, cursor.getId(), 2)
+                .stream().map(Task::getId).toList());
+
+        Task unscheduled = taskManager.getTaskById(3);
+        unscheduled.setStartTime(null);
+        taskManager.updateTask(unscheduled);
+        assertEquals(List.of(4), taskManager.getPrioritizedPage(base.plusHours(2), 3, 2)
+                .stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void shouldKeepTasksWithEqualStartTimes() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        Task first = new Task("First", "Description");
+        first.setStartTime(start);
+        taskManager.addTask(first);
+        Task second = new Task("Second", "Description");
+        second.setStartTime(start);
+        taskManager.addTask(second);
+
+        assertEquals(List.of(first, second), taskManager.getPrioritizedTasks());
+        taskManager.removeTaskById(first.getId());
+        assertEquals(List.of(second), taskManager.getPrioritizedTasks());
+    }
+
+    @Test
+    void shouldQueryTasksByTimeRange() {
+        LocalDateTime day = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Task early = new Task("Early", "Description");
+        early.setStartTime(day.withHour(8));
+        early.setDuration(Duration.ofMinutes(90));
+        taskManager.addTask(early);
+        Task morning = new Task("Morning", "Description");
+        morning.setStartTime(day.withHour(10));
+        morning.setDuration(Duration.ofMinutes(60));
+        taskManager.addTask(morning);
+        Task evening = new Task("Evening", "Description");
+        evening.setStartTime(day.withHour(17));
+        evening.setDuration(Duration.ofMinutes(30));
+        taskManager.addTask(evening);
+
+        assertEquals(List.of(morning), taskManager.getTasksStartingBetween(day.withHour(9), day.withHour(17)));
+        assertEquals(List.of(early, morning, evening),
+                taskManager.getTasksStartingBetween(day, day.plusDays(1)));
+        assertEquals(List.of(early), taskManager.getTasksActiveAt(day.withHour(9)));
+        assertTrue(taskManager.getTasksActiveAt(day.withHour(11)).isEmpty(), "Конец задачи не входит в интервал");
+        assertTrue(taskManager.getTasksActiveAt(day.withHour(12)).isEmpty());
+    }
+
+    @Test
+    void shouldFindFreeSlotsBetweenScheduledTasks() {
+        LocalDateTime day = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Task early = new Task("Early", "Description");
+        early.setStartTime(day.withHour(8));
+        early.setDuration(Duration.ofMinutes(90));
+        taskManager.addTask(early);
+        Task morning = new Task("Morning", "Description");
+        morning.setStartTime(day.withHour(10));
+        morning.setDuration(Duration.ofMinutes(60));
+        taskManager.addTask(morning);
+        Task evening = new Task("Evening", "Description");
+        evening.setStartTime(day.withHour(17));
+        evening.setDuration(Duration.ofMinutes(30));
+        taskManager.addTask(evening);
+
+        TimeSlot slot = taskManager.findFreeSlot(day.withHour(9), Duration.ofMinutes(90));
+        assertEquals(day.withHour(11).plusNanos(1), slot.getStart());
+        assertEquals(day.withHour(17).minusNanos(1), slot.getEnd());
+
+        Task fitted = new Task("Fitted", "Description");
+        fitted.setStartTime(slot.getStart());
+        fitted.setDuration(Duration.ofMinutes(90));
+        taskManager.addTask(fitted);
+        assertTrue(taskManager.getAllTasks().contains(fitted), "Окно не должно касаться соседних задач");
+
+        List<TimeSlot> slots = taskManager.findFreeSlots(day, Duration.ofMinutes(20), 10);
+        assertEquals(4, slots.size());
+        assertEquals(day, slots.get(0).getStart());
+        assertEquals(day.withHour(8).minusNanos(1), slots.get(0).getEnd());
+        assertEquals(day.withHour(9).withMinute(30).plusNanos(1), slots.get(1).getStart());
+        assertEquals(fitted.getEndTime().plusNanos(1), slots.get(2).getStart());
+        assertTrue(slots.get(3).isUnbounded());
+        assertEquals(evening.getEndTime().plusNanos(1), slots.get(3).getStart());
+
+        assertEquals(2, taskManager.findFreeSlots(day, Duration.ofHours(5), 2).size());
+        assertTrue(taskManager.findFreeSlot(day.withHour(10).withMinute(30), Duration.ofHours(5)).isUnbounded());
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.findFreeSlots(day, Duration.ofMinutes(-1), 1));
+    }
+
+    @Test
+    void tasksFarInTheFutureShouldNotCollide() {
+        Task first = new Task("2300", "Description");
+        first.setStartTime(LocalDateTime.of(2300, 1, 1, 10, 0));
+        first.setDuration(Duration.ofHours(1));
+        taskManager.addTask(first);
+        Task second = new Task("2400", "Description");
+        second.setStartTime(LocalDateTime.of(2400, 1, 1, 10, 0));
+        second.setDuration(Duration.ofHours(1));
+        taskManager.addTask(second);
+        Task placeholder = new Task("Когда-нибудь", "Description");
+        placeholder.setStartTime(LocalDateTime.of(9999, 12, 31, 0, 0));
+        placeholder.setDuration(Duration.ofMinutes(30));
+        taskManager.addTask(placeholder);
+
+        assertEquals(List.of(first, second, placeholder), taskManager.getPrioritizedTasks());
+        assertEquals(List.of(second), taskManager.getTasksActiveAt(LocalDateTime.of(2400, 1, 1, 10, 30)));
+        assertEquals(List.of(placeholder), taskManager.getTasksActiveAt(LocalDateTime.of(9999, 12, 31, 0, 10)));
+
+        Task clash = new Task("Clash", "Description");
+        clash.setStartTime(LocalDateTime.of(9999, 12, 31, 0, 29));
+        clash.setDuration(Duration.ofMinutes(5));
+        assertThrows(RuntimeException.class, () -> taskManager.addTask(clash));
+        clash.setStartTime(LocalDateTime.of(9999, 12, 31, 0, 30).plusNanos(1));
+        taskManager.addTask(clash);
+
+        List<TimeSlot> slots = taskManager.findFreeSlots(LocalDateTime.of(2300, 1, 1, 10, 0), Duration.ofDays(1), 2);
+        assertEquals(first.getEndTime().plusNanos(1), slots.get(0).getStart());
+        assertEquals(second.getStartTime().minusNanos(1), slots.get(0).getEnd());
+        assertEquals(second.getEndTime().plusNanos(1), slots.get(1).getStart());
+        assertEquals(placeholder.getStartTime().minusNanos(1), slots.get(1).getEnd());
+    }
+
+    @Test
+    void findFreeSlotShouldReturnNullWhenScheduleRunsToTheEndOfTime() {
+        Task last = new Task("Last", "Description");
+        last.setStartTime(LocalDateTime.MAX.minusHours(1));
+        last.setDuration(Duration.ofHours(1));
+        taskManager.addTask(last);
+
+        assertNull(taskManager.findFreeSlot(LocalDateTime.MAX.minusHours(2), Duration.ofHours(2)));
+        assertTrue(taskManager.findFreeSlots(last.getStartTime(), Duration.ZERO, 3).isEmpty());
+        TimeSlot before = taskManager.findFreeSlot(LocalDateTime.MAX.minusHours(2), Duration.ofMinutes(30));
+        assertEquals(last.getStartTime().minusNanos(1), before.getEnd());
+    }
+
+    @Test
+    void freeSlotsShouldMatchLinearScan() {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        java.util.Random random = new java.util.Random(42);
+        LocalDateTime cursor = base;
+        for (int i = 0; i < 300; i++) {
+            cursor = cursor.plusMinutes(1 + random.nextInt(120));
+            Task task = new Task("Task " + i, "Description");
+            task.setStartTime(cursor);
+            task.setDuration(Duration.ofMinutes(1 + random.nextInt(60)));
+            cursor = task.getEndTime();
+            taskManager.addTask(task);
+        }
+        for (int i = 0; i < 50; i++) {
+            taskManager.removeTaskById(1 + random.nextInt(300));
+        }
+
+        for (int query = 0; query < 100; query++) {
+            LocalDateTime from = base.plusMinutes(random.nextInt(30_000));
+            Duration duration = Duration.ofMinutes(random.nextInt(150));
+            List<LocalDateTime> expected = new ArrayList<>();
+            LocalDateTime free = from;
+            for (Task task : taskManager.getPrioritizedTasks()) {
+                if (!task.getEndTime().isBefore(free)) {
+                    LocalDateTime end = task.getStartTime().minusNanos(1);
+                    if (!free.plus(duration).isAfter(end)) {
+                        expected.add(free);
+                        expected.add(end);
+                    }
+                    free = task.getEndTime().plusNanos(1);
+                }
+            }
+            expected.add(free);
+            expected.add(null);
+
+            List<LocalDateTime> actual = new ArrayList<>();
+            for (TimeSlot slot : taskManager.findFreeSlots(from, duration, 3)) {
+                actual.add(slot.getStart());
+                actual.add(slot.getEnd());
+            }
+            assertEquals(expected.subList(0, Math.min(6, expected.size())), actual);
+        }
+    }
+
+    @Test
+    void autoScheduleShouldPackTasksAroundScheduledWork() {
+        LocalDateTime day = LocalDateTime.of(2025, 1, 1, 9, 0);
+        Task meeting = new Task("Meeting", "Description");
+        meeting.setStartTime(day.plusMinutes(30));
+        meeting.setDuration(Duration.ofMinutes(60));
+        taskManager.addTask(meeting);
+
+        Task low = new Task("Low", "Description");
+        low.setDuration(Duration.ofMinutes(20));
+        taskManager.addTask(low);
+        Task urgent = new Task("Urgent", "Description");
+        urgent.setDuration(Duration.ofMinutes(20));
+        taskManager.addTask(urgent);
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        SubTask afternoon = new SubTask("Afternoon", "Description", epic.getId());
+        afternoon.setDuration(Duration.ofMinutes(45));
+        taskManager.addSubTask(afternoon);
+        Task impossible = new Task("Impossible", "Description");
+        impossible.setDuration(Duration.ofMinutes(40));
+        taskManager.addTask(impossible);
+
+        SchedulingRequest request = new SchedulingRequest(day);
+        request.add(low.getId(), 1);
+        request.add(urgent.getId(), 5);
+        request.add(afternoon.getId(), 3, day.withHour(14), null);
+        request.add(impossible.getId(), 9, null, day.plusMinutes(29));
+        SchedulingResult result = taskManager.autoSchedule(request);
+
+        assertEquals(List.of(impossible.getId()), result.getUnscheduledIds());
+        assertEquals(3, result.getScheduled().size());
+        assertEquals(day, taskManager.getTaskById(urgent.getId()).getStartTime());
+        // после urgent до встречи осталось 9 минут: low идёт после неё, с минутным зазором
+        assertEquals(day.plusMinutes(91), taskManager.getTaskById(low.getId()).getStartTime());
+        assertEquals(day.withHour(14), taskManager.getSubTaskById(afternoon.getId()).getStartTime());
+        assertEquals(day.withHour(14), taskManager.getEpicById(epic.getId()).getStartTime());
+        assertNull(taskManager.getTaskById(impossible.getId()).getStartTime());
+        assertEquals(4, taskManager.getPrioritizedTasks().size());
+
+        SchedulingRequest again = new SchedulingRequest(day);
+        again.add(urgent.getId(), 1);
+        assertThrows(IllegalArgumentException.class, () -> taskManager.autoSchedule(again));
+    }
+
+    @Test
+    void shouldIndexTasksByStatus() {
+        Task task = new Task("Task", "Description");
+        taskManager.addTask(task);
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        SubTask subTask = new SubTask("SubTask", "Description", epic.getId());
+        taskManager.addSubTask(subTask);
+
+        Task updated = new Task("Task", "Description");
+        updated.setId(task.getId());
+        updated.setStatus(TaskStatus.IN_PROGRESS);
+        taskManager.updateTask(updated);
+        SubTask done = new SubTask("SubTask", "Description", epic.getId());
+        done.setId(subTask.getId());
+        done.setStatus(TaskStatus.DONE);
+        taskManager.updateSubTask(done);
+
+        assertEquals(List.of(updated), taskManager.getTasksByStatus(TaskType.TASK, TaskStatus.IN_PROGRESS));
+        assertEquals(0, taskManager.countTasksByStatus(TaskType.TASK, TaskStatus.NEW));
+        assertEquals(1, taskManager.countTasksByStatus(TaskType.SUBTASK, TaskStatus.DONE));
+        assertEquals(List.of(epic), taskManager.getTasksByStatus(TaskType.EPIC, TaskStatus.DONE));
+
+        taskManager.removeSubTaskById(subTask.getId());
+        assertEquals(1, taskManager.countTasksByStatus(TaskType.EPIC).get(TaskStatus.NEW));
+        assertEquals(0, taskManager.countTasksByStatus(TaskType.SUBTASK, TaskStatus.DONE));
+    }
+
+    @Test
+    void shouldSearchByPrefixAndRankResults() {
+        Task report = new Task("Отчёт за квартал", "Собрать отчёт и отправить отчёт");
+        taskManager.addTask(report);
+        Task call = new Task("Call", "Обсудить отчётность");
+        taskManager.addTask(call);
+        Epic epic = new Epic("Release", "Prepare the REPORT");
+        taskManager.addEpic(epic);
+
+        assertEquals(List.of(report.getId(), call.getId()), taskManager.searchTasks("отчёт", 10));
+        assertEquals(List.of(epic.getId()), taskManager.searchTasks("rep", 10));
+        assertEquals(List.of(report.getId()), taskManager.searchTasks("отчёт", 1));
+
+        Task renamed = new Task("Звонок", "Без ключевых слов");
+        renamed.setId(report.getId());
+        taskManager.updateTask(renamed);
+        assertEquals(List.of(call.getId()), taskManager.searchTasks("отчёт", 10));
+
+        taskManager.removeAllEpics();
+        assertTrue(taskManager.searchTasks("report", 10).isEmpty());
+    }
+
+    @Test
+    void searchShouldFollowUpdatesAcrossPostingBlocks() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Task task = new Task("common " + i, "Description");
+            taskManager.addTask(task);
+            tasks.add(task);
+        }
+        for (int i = 0; i < 300; i += 3) {
+            Task updated = new Task("common rare", "Description");
+            updated.setId(tasks.get(i).getId());
+            taskManager.updateTask(updated);
+        }
+        for (int i = 1; i < 300; i += 3) {
+            taskManager.removeTaskById(tasks.get(i).getId());
+        }
+
+        assertEquals(200, taskManager.searchTasks("common", 1000).size());
+        List<Integer> rare = taskManager.searchTasks("rare", 1000);
+        assertEquals(100, rare.size());
+        assertEquals(tasks.get(0).getId(), rare.get(0));
+        assertEquals(tasks.get(297).getId(), rare.get(99));
+    }
+
+    @Test
+    void searchTopShouldMatchFullRanking() {
+        String[] words = {"report", "review", "release", "research", "plan", "quarterly", "retro", "roadmap"};
+        SplittableRandom random = new SplittableRandom(17);
+        for (int i = 0; i < 3000; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int w = random.nextInt(1, 6); w > 0; w--) {
+                name.append(words[random.nextInt(random.nextBoolean() ? 2 : words.length)]).append(' ');
+            }
+            taskManager.addTask(new Task(name.toString(), "Task " + i));
+        }
+
+        for (String query : List.of("r", "re", "quarterly report", "plan re", "ta")) {
+            List<Integer> full = taskManager.searchTasks(query, 10_000);
+            for (int limit : new int[]{1, 3, 10, 100, 1000}) {
+                assertEquals(full.subList(0, Math.min(limit, full.size())), taskManager.searchTasks(query, limit),
+                        "Запрос '" + query + "', limit " + limit);
+            }
+        }
+    }
+
+    @Test
+    void batchShouldSwapSlotsAndRejectConflictsAtomically() {
+        LocalDateTime nine = LocalDateTime.of(2025, 1, 1, 9, 0);
+        Task first = new Task("First", "Description");
+        first.setStartTime(nine);
+        first.setDuration(Duration.ofMinutes(30));
+        taskManager.addTask(first);
+        Task second = new Task("Second", "Description");
+        second.setStartTime(nine.plusHours(1));
+        second.setDuration(Duration.ofMinutes(30));
+        taskManager.addTask(second);
+
+        TaskBatch swap = new TaskBatch();
+        Task movedFirst = new Task("First", "Description");
+        movedFirst.setId(first.getId());
+        movedFirst.setStartTime(nine.plusHours(1));
+        movedFirst.setDuration(Duration.ofMinutes(30));
+        swap.updateTask(movedFirst);
+        Task movedSecond = new Task("Second", "Description");
+        movedSecond.setId(second.getId());
+        movedSecond.setStartTime(nine);
+        movedSecond.setDuration(Duration.ofMinutes(30));
+        swap.updateTask(movedSecond);
+        taskManager.applyBatch(swap);
+        assertEquals(List.of(movedSecond, movedFirst), taskManager.getPrioritizedTasks());
+
+        TaskBatch conflicting = new TaskBatch();
+        Task extra = new Task("Extra", "Description");
+        conflicting.addTask(extra);
+        conflicting.removeTask(movedFirst.getId());
+        Task clash = new Task("Clash", "Description");
+        clash.setStartTime(nine.plusMinutes(15));
+        clash.setDuration(Duration.ofMinutes(10));
+        conflicting.addTask(clash);
+        assertThrows(RuntimeException.class, () -> taskManager.applyBatch(conflicting));
+        assertEquals(2, taskManager.getAllTasks().size(), "Отклонённый набор не должен ничего менять");
+
+        TaskBatch replace = new TaskBatch();
+        replace.removeTask(movedSecond.getId());
+        replace.addTask(clash);
+        taskManager.applyBatch(replace);
+        assertEquals(List.of(clash, movedFirst), taskManager.getPrioritizedTasks());
+    }
+
+    @Test
+    void shouldPublishOrderedChangeEvents() throws InterruptedException {
+        BlockingQueue<TaskEvent> received = subscribe();
+
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        SubTask subTask = new SubTask("SubTask", "Description", epic.getId());
+        subTask.setStatus(TaskStatus.DONE);
+        taskManager.addSubTask(subTask);
+        taskManager.removeSubTaskById(subTask.getId());
+
+        List<TaskEvent> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            TaskEvent event = received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "Ожидалось событие #" + i);
+            events.add(event);
+        }
+        assertEquals(List.of(TaskEvent.Kind.CREATED, TaskEvent.Kind.CREATED, TaskEvent.Kind.EPIC_RECOMPUTED,
+                        TaskEvent.Kind.REMOVED, TaskEvent.Kind.EPIC_RECOMPUTED),
+                events.stream().map(TaskEvent::getKind).toList());
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i).getSequence() > events.get(i - 1).getSequence());
+        }
+        TaskEvent recomputed = events.get(2);
+        assertEquals(epic.getId(), recomputed.getId());
+        assertEquals(TaskStatus.NEW, recomputed.getOldStatus());
+        assertEquals(TaskStatus.DONE, recomputed.getNewStatus());
+        assertEquals(TaskStatus.NEW, events.get(4).getNewStatus());
+    }
+
+    @Test
+    void updateEventShouldReportValuesBeforeInPlaceChange() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task task = new Task("Task", "Description");
+        task.setStartTime(start);
+        task.setDuration(Duration.ofMinutes(30));
+        taskManager.addTask(task);
+        BlockingQueue<TaskEvent> received = subscribe();
+
+        Task stored = taskManager.getTaskById(task.getId());
+        stored.setStatus(TaskStatus.DONE);
+        stored.setStartTime(start.plusHours(1));
+        taskManager.updateTask(stored);
+
+        TaskEvent event = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(event);
+        assertEquals(TaskEvent.Kind.UPDATED, event.getKind());
+        assertEquals(TaskStatus.NEW, event.getOldStatus());
+        assertEquals(TaskStatus.DONE, event.getNewStatus());
+        assertEquals(start, event.getOldStartTime());
+        assertEquals(start.plusHours(1), event.getNewStartTime());
+        assertEquals(start.plusMinutes(30), event.getOldEndTime());
+        assertEquals(start.plusMinutes(90), event.getNewEndTime());
+    }
+
+    private BlockingQueue<TaskEvent> subscribe() {
+        BlockingQueue<TaskEvent> received = new LinkedBlockingQueue<>();
+        taskManager.getEvents().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(TaskEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        return received;
+    }
+}
@@ -4,6 +4,10 @@ import model.Task;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
 public class TaskTest {
     @Test
     public void taskWithSameIdShouldBeEqual() {
@@ -24,4 +28,30 @@ public class TaskTest {
         Assertions.assertNotEquals(task1, task2);
         Assertions.assertNotEquals(task1.hashCode(), task2.hashCode());
     }
+
+    @Test
+    public void timeFieldsShouldRoundTripAndKeepEndInSync() {
+        Task task = new Task("Task", "Something about");
+        Assertions.assertNull(task.getStartTime());
+        Assertions.assertNull(task.getDuration());
+        Assertions.assertNull(task.getEndTime());
+        Assertions.assertFalse(task.hasStartTime());
+
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 23, 59, 59, 999_999_999);
+        task.setStartTime(start);
+        Assertions.assertNull(task.getEndTime());
+        task.setDuration(Duration.ofSeconds(1, 1));
+        Assertions.assertEquals(start, task.getStartTime());
+        Assertions.assertEquals(Duration.ofSeconds(1, 1), task.getDuration());
+        Assertions.assertEquals(LocalDateTime.of(2025, 3, 2, 0, 0, 1), task.getEndTime());
+        Assertions.assertEquals(start.toEpochSecond(ZoneOffset.UTC) + 2, task.getEndSecond());
+        Assertions.assertEquals(0, task.getEndNano());
+
+        task.setStartTime(start.minusDays(1));
+        Assertions.assertEquals(start.minusDays(1).plusSeconds(1).plusNanos(1), task.getEndTime());
+        task.setDuration(null);
+        Assertions.assertNull(task.getEndTime());
+        Assertions.assertFalse(task.hasEndTime());
+        Assertions.assertEquals(Duration.ZERO, new Task().getDuration());
+    }
 }
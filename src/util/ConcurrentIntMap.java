@@ -0,0 +1,92 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Потокобезопасный вариант IntMap поверх ConcurrentHashMap; ключи здесь упаковываются
+public class ConcurrentIntMap<V> implements IntMap<V> {
+    private final ConcurrentHashMap<Integer, V> map = new ConcurrentHashMap<>();
+    // Версия растёт уже после изменения, поэтому снимок с версией v не старее состояния v
+    private final AtomicLong version = new AtomicLong();
+    private volatile View<V> view;
+
+    private static final class View<V> {
+        final long version;
+        final List<V> values;
+
+        View(long version, List<V> values) {
+            this.version = version;
+            this.values = values;
+        }
+    }
+
+    @Override
+    public V get(int key) {
+        return map.get(key);
+    }
+
+    @Override
+    public V put(int key, V value) {
+        V old = map.put(key, value);
+        if (old != value) {
+            version.incrementAndGet();
+        }
+        return old;
+    }
+
+    @Override
+    public V remove(int key) {
+        V old = map.remove(key);
+        if (old != null) {
+            version.incrementAndGet();
+        }
+        return old;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void forEachValue(Consumer<? super V> action) {
+        map.values().forEach(action);
+    }
+
+    @Override
+    public List<V> values() {
+        return new ArrayList<>(map.values());
+    }
+
+    @Override
+    public List<V> valuesView() {
+        long current = version.get();
+        View<V> cached = view;
+        if (cached != null && cached.version == current) {
+            return cached.values;
+        }
+        List<V> values = Collections.unmodifiableList(values());
+        view = new View<>(current, values);
+        return values;
+    }
+}
@@ -0,0 +1,198 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+// Открытая адресация с линейным пробированием: ключи лежат в int[], значения в Object[],
+// пустая ячейка — null в values. Удаление сдвигает хвост кластера назад, без надгробий.
+// null в качестве значения не поддерживается.
+public class IntHashMap<V> implements IntMap<V> {
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int shift;
+    private List<V> view;
+
+    public IntHashMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    public IntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public IntHashMap(IntHashMap<? extends V> other) {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.size = other.size;
+        this.mask = other.mask;
+        this.shift = other.shift;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            Object value = values[i];
+            if (value == null) {
+                return null;
+            }
+            if (keys[i] == key) {
+                return (V) value;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value);
+        int i = slot(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                if (old != value) {
+                    view = null;
+                }
+                return old;
+            }
+        }
+        if ((size + 1) * 2 > values.length) {
+            resize(values.length * 2);
+            i = slot(key);
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        view = null;
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            Object value = values[i];
+            if (value == null) {
+                return null;
+            }
+            if (keys[i] == key) {
+                deleteAt(i);
+                view = null;
+                return (V) value;
+            }
+        }
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        view = null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (Object value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                result.add((V) value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<V> valuesView() {
+        if (view == null) {
+            view = Collections.unmodifiableList(values());
+        }
+        return view;
+    }
+
+    private int slot(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    private void deleteAt(int index) {
+        int gap = index;
+        for (int j = (index + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        values[gap] = null;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int j = slot(oldKeys[i]);
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,135 @@
+package util;
+
+import java.util.Arrays;
+
+// Карта int -> int без упаковки: то же открытое пробирование, что в IntHashMap,
+// занятость ячейки отмечается в boolean[]. Отсутствующий ключ — missingValue.
+public class IntIntHashMap {
+    private static final int MIN_CAPACITY = 8;
+
+    private final int missingValue;
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+    private int shift;
+
+    public IntIntHashMap(int missingValue) {
+        this.missingValue = missingValue;
+        allocate(MIN_CAPACITY);
+    }
+
+    public IntIntHashMap(IntIntHashMap other) {
+        this.missingValue = other.missingValue;
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.used = other.used.clone();
+        this.size = other.size;
+        this.mask = other.mask;
+        this.shift = other.shift;
+    }
+
+    public int get(int key) {
+        for (int i = slot(key); used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return missingValue;
+    }
+
+    public boolean containsKey(int key) {
+        for (int i = slot(key); used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(int key, int value) {
+        int i = slot(key);
+        for (; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+            i = slot(key);
+            while (used[i]) {
+                i = (i + 1) & mask;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        used[i] = true;
+        size++;
+    }
+
+    public int remove(int key) {
+        for (int i = slot(key); used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                int value = values[i];
+                deleteAt(i);
+                return value;
+            }
+        }
+        return missingValue;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private int slot(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    private void deleteAt(int index) {
+        int gap = index;
+        for (int j = (index + 1) & mask; used[j]; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        used[gap] = false;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                int j = slot(oldKeys[i]);
+                while (used[j]) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+                used[j] = true;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+    }
+}
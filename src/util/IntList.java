@@ -0,0 +1,116 @@
+package util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+public class IntList {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] elements;
+    private int size;
+
+    public IntList() {
+        this.elements = EMPTY;
+    }
+
+    public IntList(IntList other) {
+        this.elements = Arrays.copyOf(other.elements, other.size);
+        this.size = other.size;
+    }
+
+    public void add(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(4, size + (size >> 1)));
+        }
+        elements[size++] = value;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return elements[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean removeValue(int value) {
+        int index = indexOf(value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public void set(int index, int value) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        elements[index] = value;
+    }
+
+    // Удаляет все вхождения value одним проходом, порядок остальных сохраняется
+    public int removeAll(int value) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (elements[i] != value) {
+                elements[kept++] = elements[i];
+            }
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elements[i]);
+        }
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(elements, 0, size);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(elements[i]);
+        }
+        return builder.append(']').toString();
+    }
+}
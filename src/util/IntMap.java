@@ -0,0 +1,27 @@
+package util;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface IntMap<V> {
+    V get(int key);
+
+    V put(int key, V value);
+
+    V remove(int key);
+
+    boolean containsKey(int key);
+
+    int size();
+
+    boolean isEmpty();
+
+    void clear();
+
+    void forEachValue(Consumer<? super V> action);
+
+    List<V> values();
+
+    // Неизменяемый снимок значений: пока карта не менялась, возвращается тот же объект
+    List<V> valuesView();
+}
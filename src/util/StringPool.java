@@ -0,0 +1,75 @@
+package util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Ограниченный пул для дедупликации строк. В отличие от String.intern не растёт:
+// таблица двухвходовая, новая строка вытесняет более старую из пары ячеек.
+// Гонки безопасны — String неизменяем, в худшем случае теряется одно попадание.
+public class StringPool {
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final String[] slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StringPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Pool capacity must be positive: " + capacity);
+        }
+        int size = Math.max(2, Integer.highestOneBit(Math.min(capacity, MAX_CAPACITY)));
+        if (size < capacity && size < MAX_CAPACITY) {
+            size <<= 1;
+        }
+        this.slots = new String[size];
+        this.mask = size - 1;
+    }
+
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        int first = (hash ^ (hash >>> 16)) & mask;
+        int second = first ^ 1;
+        String cached = slots[first];
+        if (cached != null && cached.equals(value)) {
+            hits.increment();
+            return cached;
+        }
+        String other = slots[second];
+        if (other != null && other.equals(value)) {
+            hits.increment();
+            return other;
+        }
+        slots[second] = cached;
+        slots[first] = value;
+        misses.increment();
+        return value;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    @Override
+    public String toString() {
+        return "StringPool{capacity=" + slots.length +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() + "}";
+    }
+}